@@ -0,0 +1,224 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.benchmark;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a local file system Ivy repository together with the ivy files of a project that depends on it.
+ *
+ * The repository holds a number of levels of third party libraries, where every library depends on a few libraries of
+ * the next level, and the published revisions of the project modules, which depend on libraries of the first level
+ * and on project modules generated before them. Every library has a jar and, optionally, sources and javadoc
+ * artifacts in configurations of their own, so that they are only found by looking at the descriptor the way
+ * IvyIDEA does. The same seed always gives the same repository.
+ */
+public class SyntheticRepository {
+
+    public static final String LIBRARY_ORGANISATION = "org.synthetic.lib";
+    public static final String PROJECT_ORGANISATION = "org.synthetic.project";
+    public static final String SETTINGS_FILE = "ivysettings.xml";
+
+    private static final String REVISION = "1.0";
+    private static final byte[] CLASS_BYTES = new byte[1024];
+
+    private final int moduleCount;
+    private final int fanOut;
+    private final int depth;
+    private final int librariesPerLevel;
+    private final int configurationCount;
+    private final boolean sourcesAndJavadocs;
+    private final long seed;
+
+    /**
+     * @param moduleCount        the number of project modules
+     * @param fanOut             the number of libraries every module and library depends on
+     * @param depth              the number of library levels
+     * @param librariesPerLevel  the number of libraries on each level
+     * @param configurationCount the number of configurations of the project modules
+     * @param sourcesAndJavadocs whether the libraries have sources and javadoc artifacts
+     * @param seed               the seed for picking the dependencies
+     */
+    public SyntheticRepository(int moduleCount, int fanOut, int depth, int librariesPerLevel, int configurationCount, boolean sourcesAndJavadocs, long seed) {
+        this.moduleCount = moduleCount;
+        this.fanOut = Math.max(1, fanOut);
+        this.depth = Math.max(1, depth);
+        this.librariesPerLevel = Math.max(1, librariesPerLevel);
+        this.configurationCount = Math.max(1, configurationCount);
+        this.sourcesAndJavadocs = sourcesAndJavadocs;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the settings file, the repository and the project modules to the given directory.
+     *
+     * @return the ivy files of the project modules
+     */
+    public List<File> generate(File directory) throws IOException {
+        final Random random = new Random(seed);
+        final File repository = new File(directory, "repository");
+        writeSettings(new File(directory, SETTINGS_FILE));
+
+        for (int level = 0; level < depth; level++) {
+            for (int index = 0; index < librariesPerLevel; index++) {
+                final List<String> dependencies = new ArrayList<>();
+                if (level + 1 < depth) {
+                    for (int library : pick(random, librariesPerLevel, fanOut)) {
+                        dependencies.add(dependency(LIBRARY_ORGANISATION, getLibraryName(level + 1, library), "default->default"));
+                    }
+                }
+                writeLibrary(repository, getLibraryName(level, index), dependencies);
+            }
+        }
+
+        final List<File> ivyFiles = new ArrayList<>(moduleCount);
+        for (int module = 0; module < moduleCount; module++) {
+            final List<String> dependencies = new ArrayList<>();
+            for (int library : pick(random, librariesPerLevel, fanOut)) {
+                dependencies.add(dependency(LIBRARY_ORGANISATION, getLibraryName(0, library), getConfigurationName(random.nextInt(configurationCount)) + "->default"));
+            }
+            for (int otherModule : pick(random, module, Math.max(1, fanOut / 2))) {
+                dependencies.add(dependency(PROJECT_ORGANISATION, getModuleName(otherModule), getConfigurationName(random.nextInt(configurationCount)) + "->default"));
+            }
+
+            final String descriptor = createModuleDescriptor(getModuleName(module), dependencies);
+            final File moduleDirectory = new File(repository, PROJECT_ORGANISATION + "/" + getModuleName(module) + "/" + REVISION);
+            write(new File(moduleDirectory, "ivy.xml"), descriptor);
+            writeJar(new File(moduleDirectory, "jars/" + getModuleName(module) + "-" + REVISION + ".jar"));
+
+            final File ivyFile = new File(directory, "modules/" + getModuleName(module) + "/ivy.xml");
+            write(ivyFile, descriptor);
+            ivyFiles.add(ivyFile);
+        }
+        return ivyFiles;
+    }
+
+    private void writeSettings(File settingsFile) throws IOException {
+        write(settingsFile, "<ivysettings>\n"
+                + "    <settings defaultResolver=\"synthetic\"/>\n"
+                + "    <resolvers>\n"
+                + "        <filesystem name=\"synthetic\" checkmodified=\"false\">\n"
+                + "            <ivy pattern=\"${ivy.settings.dir}/repository/[organisation]/[module]/[revision]/ivy.xml\"/>\n"
+                + "            <artifact pattern=\"${ivy.settings.dir}/repository/[organisation]/[module]/[revision]/[type]s/[artifact]-[revision].[ext]\"/>\n"
+                + "        </filesystem>\n"
+                + "    </resolvers>\n"
+                + "</ivysettings>\n");
+    }
+
+    private void writeLibrary(File repository, String name, List<String> dependencies) throws IOException {
+        final File directory = new File(repository, LIBRARY_ORGANISATION + "/" + name + "/" + REVISION);
+        final StringBuilder descriptor = new StringBuilder();
+        descriptor.append("<ivy-module version=\"2.0\">\n")
+                .append("    <info organisation=\"").append(LIBRARY_ORGANISATION).append("\" module=\"").append(name).append("\" revision=\"").append(REVISION).append("\" status=\"release\"/>\n")
+                .append("    <configurations>\n")
+                .append("        <conf name=\"default\"/>\n");
+        if (sourcesAndJavadocs) {
+            descriptor.append("        <conf name=\"sources\"/>\n")
+                    .append("        <conf name=\"javadoc\"/>\n");
+        }
+        descriptor.append("    </configurations>\n")
+                .append("    <publications>\n")
+                .append("        <artifact name=\"").append(name).append("\" type=\"jar\" ext=\"jar\" conf=\"default\"/>\n");
+        writeJar(new File(directory, "jars/" + name + "-" + REVISION + ".jar"));
+        if (sourcesAndJavadocs) {
+            descriptor.append("        <artifact name=\"").append(name).append("-sources\" type=\"source\" ext=\"jar\" conf=\"sources\"/>\n")
+                    .append("        <artifact name=\"").append(name).append("-javadoc\" type=\"javadoc\" ext=\"jar\" conf=\"javadoc\"/>\n");
+            writeJar(new File(directory, "sources/" + name + "-sources-" + REVISION + ".jar"));
+            writeJar(new File(directory, "javadocs/" + name + "-javadoc-" + REVISION + ".jar"));
+        }
+        descriptor.append("    </publications>\n")
+                .append("    <dependencies>\n");
+        for (String dependency : dependencies) {
+            descriptor.append(dependency);
+        }
+        descriptor.append("    </dependencies>\n")
+                .append("</ivy-module>\n");
+        write(new File(directory, "ivy.xml"), descriptor.toString());
+    }
+
+    private String createModuleDescriptor(String name, List<String> dependencies) {
+        final StringBuilder descriptor = new StringBuilder();
+        descriptor.append("<ivy-module version=\"2.0\">\n")
+                .append("    <info organisation=\"").append(PROJECT_ORGANISATION).append("\" module=\"").append(name).append("\" revision=\"").append(REVISION).append("\" status=\"integration\"/>\n")
+                .append("    <configurations>\n");
+        for (int configuration = 0; configuration < configurationCount; configuration++) {
+            descriptor.append("        <conf name=\"").append(getConfigurationName(configuration)).append("\"")
+                    .append(configuration == 0 ? "" : " extends=\"default\"").append("/>\n");
+        }
+        descriptor.append("    </configurations>\n")
+                .append("    <publications>\n")
+                .append("        <artifact name=\"").append(name).append("\" type=\"jar\" ext=\"jar\" conf=\"default\"/>\n")
+                .append("    </publications>\n")
+                .append("    <dependencies>\n");
+        for (String dependency : dependencies) {
+            descriptor.append(dependency);
+        }
+        descriptor.append("    </dependencies>\n")
+                .append("</ivy-module>\n");
+        return descriptor.toString();
+    }
+
+    private static String dependency(String organisation, String name, String configurationMapping) {
+        return "        <dependency org=\"" + organisation + "\" name=\"" + name + "\" rev=\"" + REVISION + "\" conf=\"" + configurationMapping + "\"/>\n";
+    }
+
+    private static String getLibraryName(int level, int index) {
+        return "lib-" + level + "-" + index;
+    }
+
+    private static String getModuleName(int index) {
+        return "module-" + index;
+    }
+
+    private static String getConfigurationName(int index) {
+        return index == 0 ? "default" : "conf" + index;
+    }
+
+    /**
+     * @return up to count distinct numbers below bound
+     */
+    private static Set<Integer> pick(Random random, int bound, int count) {
+        final Set<Integer> result = new TreeSet<>();
+        if (bound == 0) {
+            return result;
+        }
+        final int wanted = Math.min(bound, count);
+        while (result.size() < wanted) {
+            result.add(random.nextInt(bound));
+        }
+        return result;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeJar(File file) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        try (ZipOutputStream jar = new ZipOutputStream(new FileOutputStream(file))) {
+            jar.putNextEntry(new ZipEntry("Synthetic.class"));
+            jar.write(CLASS_BYTES);
+            jar.closeEntry();
+        }
+    }
+}
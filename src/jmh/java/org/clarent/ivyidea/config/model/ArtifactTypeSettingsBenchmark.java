@@ -0,0 +1,52 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.config.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Classifies the artifacts of a project, as is done for every artifact in a resolve report.
+ */
+@State(Scope.Benchmark)
+public class ArtifactTypeSettingsBenchmark {
+
+    private static final int ARTIFACTS_PER_MODULE = 30;
+    private static final String[] TYPES = {"jar", "source", "javadoc", "bundle", "src", "pom", "test-jar", "zip", " JAR ", "doc"};
+
+    @Param({"10", "100", "1000", "5000"})
+    public int moduleCount;
+
+    private ArtifactTypeSettings settings;
+    private String[] artifactTypes;
+
+    @Setup
+    public void setUp() {
+        settings = new ArtifactTypeSettings();
+        artifactTypes = new String[moduleCount * ARTIFACTS_PER_MODULE];
+        for (int i = 0; i < artifactTypes.length; i++) {
+            artifactTypes[i] = TYPES[i % TYPES.length];
+        }
+    }
+
+    @Benchmark
+    public void getCategoryForType(Blackhole blackhole) {
+        for (String artifactType : artifactTypes) {
+            blackhole.consume(settings.getCategoryForType(artifactType));
+        }
+    }
+}
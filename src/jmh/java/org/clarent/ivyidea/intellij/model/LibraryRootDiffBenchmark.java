@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the roots of a library with the resolved files, as is done when the libraries of a module are updated.
+ * One in ten files differs between the two, like after a version bump of a few dependencies.
+ */
+@State(Scope.Benchmark)
+public class LibraryRootDiffBenchmark {
+
+    private static final int ROOTS_PER_MODULE = 20;
+
+    @Param({"10", "100", "1000", "5000"})
+    public int moduleCount;
+
+    private LibraryRootDiff rootDiff;
+    private List<String> existingUrls;
+    private List<File> wantedFiles;
+
+    @Setup
+    public void setUp() {
+        rootDiff = new LibraryRootDiff(false);
+        final int rootCount = moduleCount * ROOTS_PER_MODULE;
+        existingUrls = new ArrayList<>(rootCount);
+        wantedFiles = new ArrayList<>(rootCount);
+        for (int i = 0; i < rootCount; i++) {
+            final String path = "/home/user/.ivy2/cache/org" + (i % 50) + "/lib" + i + "/jars/lib" + i + "-1.0.jar";
+            existingUrls.add("jar://" + path + "!/");
+            wantedFiles.add(new File(i % 10 == 0 ? path.replace("-1.0.jar", "-1.1.jar") : path));
+        }
+    }
+
+    @Benchmark
+    public List<String> getRootsToRemove() {
+        return rootDiff.getRootsToRemove(existingUrls, wantedFiles);
+    }
+
+    @Benchmark
+    public List<File> getFilesToAdd() {
+        return rootDiff.getFilesToAdd(existingUrls, wantedFiles);
+    }
+}
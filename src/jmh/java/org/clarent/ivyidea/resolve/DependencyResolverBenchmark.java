@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve;
+
+import com.intellij.openapi.module.Module;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.util.DefaultMessageLogger;
+import org.apache.ivy.util.Message;
+import org.clarent.ivyidea.benchmark.SyntheticRepository;
+import org.clarent.ivyidea.config.model.ArtifactTypeSettings;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Extracts the dependencies from the resolve report of a module with the given number of dependencies, with sources
+ * and javadocs attached and every tenth dependency being a module of the project. The report comes from resolving a
+ * {@link SyntheticRepository} once per trial, so only the extraction itself is measured.
+ */
+@State(Scope.Benchmark)
+public class DependencyResolverBenchmark {
+
+    private static final DependencyResolver.ExtractOptions OPTIONS = new DependencyResolver.ExtractOptions(true, true, true, false);
+
+    @Param({"10", "100", "1000", "5000"})
+    public int dependencyCount;
+
+    private Path directory;
+    private ResolveReport report;
+    private ArtifactTypeSettings artifactTypeSettings;
+    private Map<ModuleId, Module> ivyModules;
+    private List<ModuleId> dependencyIds;
+
+    @Setup
+    public void setUp() throws Exception {
+        Message.setDefaultLogger(new DefaultMessageLogger(Message.MSG_WARN));
+        directory = Files.createTempDirectory("ivyidea-jmh");
+        final SyntheticRepository repository = new SyntheticRepository(1, dependencyCount, 1, dependencyCount, 3, true, 42);
+        final File ivyFile = repository.generate(directory.toFile()).get(0);
+
+        final IvySettings settings = new IvySettings();
+        settings.setDefaultCache(directory.resolve("cache").toFile());
+        settings.load(directory.resolve(SyntheticRepository.SETTINGS_FILE).toFile());
+        report = Ivy.newInstance(settings).resolve(ivyFile.toURI().toURL(), new ResolveOptions());
+        artifactTypeSettings = new ArtifactTypeSettings();
+
+        ivyModules = new HashMap<>();
+        dependencyIds = new ArrayList<>();
+        for (ModuleRevisionId dependency : report.getConfigurationReport("default").getModuleRevisionIds()) {
+            dependencyIds.add(dependency.getModuleId());
+            if (dependencyIds.size() % 10 == 0) {
+                ivyModules.put(dependency.getModuleId(), createModule(dependency.getName()));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public DependencyResolver extractDependencies() {
+        final DependencyResolver resolver = new DependencyResolver();
+        resolver.extractDependencies(report, artifactTypeSettings, OPTIONS, ivyModules);
+        return resolver;
+    }
+
+    @Benchmark
+    public void getModuleDependency(Blackhole blackhole) {
+        final IntellijModuleDependencies moduleDependencies = new IntellijModuleDependencies(ivyModules, report.getModuleDescriptor().getModuleRevisionId().getModuleId());
+        for (ModuleId dependencyId : dependencyIds) {
+            blackhole.consume(moduleDependencies.getModuleDependency(dependencyId));
+        }
+    }
+
+    /**
+     * @return a module that only knows its name; the extraction doesn't need anything else
+     */
+    private static Module createModule(String name) {
+        return (Module) Proxy.newProxyInstance(Module.class.getClassLoader(), new Class<?>[]{Module.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                case "toString":
+                    return name;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.ResolveReport;
+import org.apache.ivy.core.resolve.DownloadOptions;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.util.DefaultMessageLogger;
+import org.apache.ivy.util.Message;
+import org.clarent.ivyidea.benchmark.SyntheticRepository;
+import org.clarent.ivyidea.config.model.ArtifactTypeSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the modules of a {@link SyntheticRepository} the way IvyIDEA does, without an IDE: every ivy file is
+ * resolved with the same engine, the dependencies are extracted from the report by {@link DependencyResolver}, and the
+ * sources and javadoc artifacts it asks for are downloaded once, like {@link ParallelArtifactDownloader} does. This is
+ * done twice, first with an empty cache and then with the cache filled by the first run; the wall time, the allocated
+ * bytes and the peak heap usage of both runs are printed. The peak is the highest total heap usage seen while
+ * sampling it every few milliseconds, so short peaks in between can be missed.
+ *
+ * Options are given as --name=value: modules (1000), fanOut (5), depth (4), libraries (200, per level),
+ * configurations (3), sources (true), seed (42), dir (a temporary directory, removed afterwards unless keep=true).
+ * The cache always goes to a temporary directory that is removed afterwards.
+ */
+public class ResolveBenchmark {
+
+    // the project modules are published to the repository, so they are resolved as libraries
+    private static final DependencyResolver.ExtractOptions EXTRACT_OPTIONS = new DependencyResolver.ExtractOptions(false, true, true, false);
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = parseOptions(args);
+        final int moduleCount = getInt(options, "modules", 1000);
+        final SyntheticRepository repository = new SyntheticRepository(moduleCount,
+                getInt(options, "fanOut", 5), getInt(options, "depth", 4), getInt(options, "libraries", 200),
+                getInt(options, "configurations", 3), Boolean.parseBoolean(options.getOrDefault("sources", "true")),
+                Long.parseLong(options.getOrDefault("seed", "42")));
+
+        Message.setDefaultLogger(new DefaultMessageLogger(Message.MSG_WARN));
+
+        final boolean temporaryDirectory = !options.containsKey("dir");
+        final File directory = temporaryDirectory ? Files.createTempDirectory("ivyidea-repository").toFile() : new File(options.get("dir"));
+        final File cache = Files.createTempDirectory("ivyidea-cache").toFile();
+        try {
+            final long start = System.nanoTime();
+            final List<File> ivyFiles = repository.generate(directory);
+            System.out.println("Generated " + ivyFiles.size() + " modules in " + directory + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+            System.out.println("Empty cache:  " + run(directory, cache, ivyFiles));
+            System.out.println("Filled cache: " + run(directory, cache, ivyFiles));
+        } finally {
+            delete(cache);
+            if (temporaryDirectory && !Boolean.parseBoolean(options.get("keep"))) {
+                delete(directory);
+            }
+        }
+    }
+
+    private static Result run(File directory, File cache, List<File> ivyFiles) throws Exception {
+        final IvySettings settings = new IvySettings();
+        settings.setDefaultCache(cache);
+        settings.load(new File(directory, SyntheticRepository.SETTINGS_FILE));
+        final Ivy ivy = Ivy.newInstance(settings);
+        final ArtifactTypeSettings artifactTypeSettings = new ArtifactTypeSettings();
+
+        System.gc();
+        final Result result = new Result();
+        final HeapSampler heapSampler = new HeapSampler();
+        final long allocatedBefore = getAllocatedBytes();
+        final long start = System.nanoTime();
+
+        // like ParallelArtifactDownloader, modules resolved with the same engine share their additional downloads
+        final Map<Artifact, ArtifactDownloadReport> downloadReports = new HashMap<>();
+        ivy.pushContext();
+        try {
+            for (File ivyFile : ivyFiles) {
+                final ResolveReport report = ivy.resolve(ivyFile.toURI().toURL(), new ResolveOptions());
+                final DependencyResolver resolver = new DependencyResolver();
+                resolver.extractDependencies(report, artifactTypeSettings, EXTRACT_OPTIONS, Collections.emptyMap());
+                for (Artifact artifact : resolver.getAdditionalArtifacts()) {
+                    if (!downloadReports.containsKey(artifact)) {
+                        downloadReports.put(artifact, ivy.getResolveEngine().download(artifact, new DownloadOptions()));
+                        result.additionalArtifacts++;
+                    }
+                }
+                resolver.addAdditionalArtifacts(downloadReports);
+                result.artifacts += resolver.getResolvedExternalDependencies().size();
+                result.problems += resolver.getResolveProblems().size();
+            }
+        } finally {
+            ivy.popContext();
+            heapSampler.stop();
+        }
+
+        result.modules = ivyFiles.size();
+        result.wallTimeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        result.allocatedBytes = getAllocatedBytes() - allocatedBefore;
+        result.peakHeapBytes = heapSampler.getPeakBytes();
+        return result;
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, -1 if the JVM can't tell; Ivy resolves on the
+     *         calling thread, so this covers the whole resolve
+     */
+    private static long getAllocatedBytes() {
+        final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        final Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Options are given as --name=value: " + arg);
+            }
+            final int separator = arg.indexOf('=');
+            if (separator < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+
+    private static int getInt(Map<String, String> options, String name, int defaultValue) {
+        final String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static void delete(File directory) throws IOException {
+        if (!directory.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Samples the total heap usage on a thread of its own until stopped.
+     */
+    private static class HeapSampler {
+
+        private static final long INTERVAL_MILLIS = 5;
+
+        private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        private final Thread thread;
+        private volatile boolean stopped;
+        private volatile long peakBytes;
+
+        private HeapSampler() {
+            sample();
+            thread = new Thread(() -> {
+                while (!stopped) {
+                    sample();
+                    try {
+                        Thread.sleep(INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "heap sampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void sample() {
+            peakBytes = Math.max(peakBytes, memoryBean.getHeapMemoryUsage().getUsed());
+        }
+
+        private void stop() throws InterruptedException {
+            stopped = true;
+            thread.join();
+            sample();
+        }
+
+        private long getPeakBytes() {
+            return peakBytes;
+        }
+    }
+
+    private static class Result {
+
+        private int modules;
+        private int artifacts;
+        private int additionalArtifacts;
+        private int problems;
+        private long wallTimeMillis;
+        private long allocatedBytes;
+        private long peakHeapBytes;
+
+        @Override
+        public String toString() {
+            return modules + " modules resolved in " + wallTimeMillis + " ms, "
+                    + artifacts + " artifacts, " + additionalArtifacts + " sources/javadocs, " + problems + " problems, "
+                    + (allocatedBytes < 0 ? "allocations unknown" : toMegabytes(allocatedBytes) + " MB allocated") + ", "
+                    + "peak heap " + toMegabytes(peakHeapBytes) + " MB";
+        }
+
+        private static long toMegabytes(long bytes) {
+            return bytes / (1024 * 1024);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+
+/**
+ * Checks the files of the resolved artifacts of a project, as is done at the end of extracting the dependencies from
+ * a resolve report. A fifth of the files doesn't exist.
+ */
+@State(Scope.Benchmark)
+public class FileStatCacheBenchmark {
+
+    private static final int FILES_PER_MODULE = 5;
+
+    @Param({"10", "100", "1000", "5000"})
+    public int moduleCount;
+
+    private Path directory;
+    private List<File> files;
+    private ExecutorService lookupExecutor;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("ivyidea-jmh");
+        final int fileCount = moduleCount * FILES_PER_MODULE;
+        files = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            final Path file = directory.resolve("lib" + i + ".jar");
+            if (i % 5 != 0) {
+                Files.createFile(file);
+            }
+            files.add(file.toFile());
+        }
+        lookupExecutor = FileStatCache.newLookupExecutor();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        lookupExecutor.shutdownNow();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public FileStatCache checkAll() {
+        final FileStatCache cache = new FileStatCache(lookupExecutor);
+        cache.checkAll(files);
+        return cache;
+    }
+
+    @Benchmark
+    public int existsOneByOne() {
+        final FileStatCache cache = new FileStatCache();
+        int existing = 0;
+        for (File file : files) {
+            if (cache.exists(file)) {
+                existing++;
+            }
+        }
+        return existing;
+    }
+}
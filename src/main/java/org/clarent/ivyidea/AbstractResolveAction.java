@@ -23,14 +23,22 @@ import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import org.clarent.ivyidea.intellij.IntellijUtils;
+import org.clarent.ivyidea.intellij.IvyIdeaResolveStateService;
 import org.clarent.ivyidea.intellij.facet.config.IvyIdeaFacetConfiguration;
-import org.clarent.ivyidea.intellij.model.IntellijModuleWrapper;
+import org.clarent.ivyidea.intellij.model.ModuleDependencyBatch;
+import org.clarent.ivyidea.ivy.ResolveSession;
+import org.clarent.ivyidea.resolve.IntellijDependencyResolver;
+import org.clarent.ivyidea.resolve.ResolverMetrics;
 import org.clarent.ivyidea.resolve.dependency.ExternalDependency;
 import org.clarent.ivyidea.resolve.dependency.InternalDependency;
 import org.clarent.ivyidea.resolve.dependency.ResolvedDependency;
 import org.clarent.ivyidea.resolve.problem.ResolveProblem;
+import org.clarent.ivyidea.resolve.snapshot.ResolveSnapshotStore;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -38,18 +46,99 @@ import java.util.Set;
  */
 public abstract class AbstractResolveAction extends AnAction {
 
-    protected void updateIntellijModel(final Module module, final List<ExternalDependency> externalDependencies, final List<InternalDependency> internalDependencies) {
-        ApplicationManager.getApplication().invokeLater(() -> ApplicationManager.getApplication().runWriteAction(() -> {
-            try (IntellijModuleWrapper moduleWrapper = IntellijModuleWrapper.forModule(module)) {
-                moduleWrapper.updateDependencies(externalDependencies, internalDependencies);
+    protected void updateIntellijModel(final ResolveSession session, final Module module, final List<ExternalDependency> externalDependencies, final List<InternalDependency> internalDependencies, @Nullable final String inputFingerprint) {
+        final ModuleDependencyBatch batch = new ModuleDependencyBatch(session);
+        batch.add(module, externalDependencies, internalDependencies);
+        updateIntellijModel(batch, Collections.singletonMap(module, inputFingerprint));
+    }
+
+    /**
+     * Updates the dependencies of all modules in the batch in a single write action, leaving out the modules that
+     * are already up to date; to be called from a background thread.
+     *
+     * The resolve inputs remembered for the given modules are forgotten right away, and the given ones are only
+     * remembered once the batch has been applied, so that a module is never skipped because of a resolve that did not
+     * make it into the IntelliJ model.
+     *
+     * @param inputFingerprints the fingerprints of the resolve inputs to remember per module, null values for modules
+     *                          that should not be skipped next time (see {@link #getRepeatableInputFingerprint})
+     */
+    protected void updateIntellijModel(final ModuleDependencyBatch batch, final Map<Module, String> inputFingerprints) {
+        for (Module module : inputFingerprints.keySet()) {
+            IvyIdeaResolveStateService.getInstance(module.getProject()).setResolved(module, null);
+        }
+        final Runnable rememberResolves = () -> {
+            for (Map.Entry<Module, String> entry : inputFingerprints.entrySet()) {
+                if (entry.getValue() != null && !entry.getKey().isDisposed()) {
+                    IvyIdeaResolveStateService.getInstance(entry.getKey().getProject()).setResolved(entry.getKey(), entry.getValue());
+                }
             }
-        }));
+        };
+
+        batch.computeChanges();
+        if (batch.isEmpty()) {
+            rememberResolves.run();
+            return;
+        }
+        ApplicationManager.getApplication().invokeLater(() -> {
+            ApplicationManager.getApplication().runWriteAction(batch::apply);
+            rememberResolves.run();
+        });
+    }
+
+    /**
+     * Gives the fingerprint of the inputs of a resolve if resolving again with the same inputs is bound to give the
+     * same result, so that the module can be skipped until they change. Resolves that reported problems or depend on
+     * dynamic or changing revisions don't qualify: they are done again every time.
+     *
+     * @return the given fingerprint, or null if the resolve should not be skipped next time
+     */
+    @Nullable
+    protected String getRepeatableInputFingerprint(final IntellijDependencyResolver resolver, @Nullable final String inputFingerprint) {
+        return resolver.getProblems().isEmpty() && !resolver.hasDynamicRevisions() ? inputFingerprint : null;
+    }
+
+    /**
+     * Stores a snapshot of the outcome of a resolve, from which the libraries can be restored without running Ivy.
+     *
+     * @param inputFingerprint the fingerprint to remember when the snapshot is restored, see {@link #getRepeatableInputFingerprint}
+     */
+    protected void saveSnapshot(final IntellijDependencyResolver resolver, @Nullable final String inputFingerprint) {
+        final Module module = resolver.getModule();
+        ResolveSnapshotStore.forProject(module.getProject()).save(module, inputFingerprint,
+                resolver.getExternalDependencies(), resolver.getInternalDependencies(), resolver.getProblems());
     }
 
     protected void clearConsole(final Project project) {
         ApplicationManager.getApplication().invokeLater(() -> IntellijUtils.getConsoleView(project).clear());
     }
 
+    protected void reportSkippedModules(final Project project, final int skippedModuleCount) {
+        if (skippedModuleCount == 0) {
+            return;
+        }
+        ApplicationManager.getApplication().invokeLater(() -> IntellijUtils.getConsoleView(project).print(
+                "Skipped " + skippedModuleCount + " module(s) whose ivy file and settings did not change since their last resolve.\n",
+                ConsoleViewContentType.NORMAL_OUTPUT));
+    }
+
+    /**
+     * Prints how the Ivy resolvers fared during the resolve: cache hits, fetches and resolve times.
+     */
+    protected void reportResolverMetrics(final Project project, final ResolverMetrics metrics) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        final List<String> summary = metrics.getSummary();
+        ApplicationManager.getApplication().invokeLater(() -> {
+            final ConsoleView consoleView = IntellijUtils.getConsoleView(project);
+            consoleView.print("Resolver statistics:\n", ConsoleViewContentType.NORMAL_OUTPUT);
+            for (String line : summary) {
+                consoleView.print("\t" + line + '\n', ConsoleViewContentType.NORMAL_OUTPUT);
+            }
+        });
+    }
+
     protected void reportProblems(final Module module, final List<ResolveProblem> problems) {
         ApplicationManager.getApplication().invokeLater(() -> {
             final IvyIdeaFacetConfiguration ivyIdeaFacetConfiguration = IvyIdeaFacetConfiguration.getInstance(module);
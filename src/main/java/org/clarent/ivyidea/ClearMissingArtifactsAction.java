@@ -0,0 +1,37 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.project.Project;
+import org.clarent.ivyidea.intellij.IvyIdeaMissingArtifactsService;
+
+/**
+ * Action to forget the sources and javadoc artifacts that were found to be missing, so that the next resolve looks
+ * for them again.
+ */
+public class ClearMissingArtifactsAction extends AnAction {
+
+    public void actionPerformed(AnActionEvent e) {
+        final Project project = PlatformDataKeys.PROJECT.getData(e.getDataContext());
+        if (project != null) {
+            IvyIdeaMissingArtifactsService.getInstance(project).clear();
+        }
+    }
+}
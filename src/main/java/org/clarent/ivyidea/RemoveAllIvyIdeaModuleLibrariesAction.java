@@ -21,23 +21,37 @@ import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.PlatformDataKeys;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.LibraryOrderEntry;
 import com.intellij.openapi.roots.ModifiableRootModel;
 import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.OrderEntry;
+import com.intellij.openapi.roots.ex.ProjectRootManagerEx;
+import com.intellij.openapi.roots.impl.ModifiableModelCommitter;
 import com.intellij.openapi.roots.libraries.Library;
 import com.intellij.openapi.roots.libraries.LibraryTable;
 import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
 import org.clarent.ivyidea.intellij.IntellijUtils;
+import org.clarent.ivyidea.intellij.IvyIdeaResolveStateService;
+import org.clarent.ivyidea.intellij.model.ProjectLibraries;
 import org.clarent.ivyidea.intellij.task.IvyIdeaBackgroundTask;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Action to remove all module libraries that match the name of the
  * IvyIDEA-resolved module.
  *
+ * The modules are checked in the background first; the libraries are then removed from all affected modules in a
+ * single write action, committing the module models together.
+ *
  * @author Guy Mahieu
  */
 public class RemoveAllIvyIdeaModuleLibrariesAction extends AnAction {
@@ -47,28 +61,68 @@ public class RemoveAllIvyIdeaModuleLibrariesAction extends AnAction {
         ProgressManager.getInstance().run(new IvyIdeaBackgroundTask(e) {
             public void run(@NotNull final ProgressIndicator indicator) {
                 final Module[] facet = IntellijUtils.getAllModulesWithIvyIdeaFacet(project);
+                // the libraries are gone, so none of the modules can be skipped on the next resolve
+                IvyIdeaResolveStateService.getInstance(project).clear();
                 indicator.setIndeterminate(false);
-                for (final Module module : facet) {
-                    indicator.setText2("Removing for module " + module.getName());
-                    ApplicationManager.getApplication().invokeAndWait(() -> ApplicationManager.getApplication().runWriteAction(() -> {
-                        final ModifiableRootModel model = ModuleRootManager.getInstance(module).getModifiableModel();
-                        final LibraryTable moduleLibraryTable = model.getModuleLibraryTable();
-                        final Library[] libraries = moduleLibraryTable.getLibraries();
-                        boolean found = false;
-                        for (final Library library : libraries) {
-                            if (IvyIdeaConfigHelper.isCreatedLibraryName(library.getName())) {
-                                found = true;
-                                moduleLibraryTable.removeLibrary(library);
-                            }
-                        }
-                        if (found) {
-                            model.commit();
-                        } else {
-                            model.dispose();
-                        }
-                    }), ModalityState.NON_MODAL);
+                final List<Module> affectedModules = new ArrayList<>();
+                for (int i = 0; i < facet.length; i++) {
+                    indicator.checkCanceled();
+                    final Module module = facet[i];
+                    indicator.setText2("Checking module " + module.getName());
+                    if (ReadAction.compute(() -> !module.isDisposed() && hasResolvedLibraries(module))) {
+                        affectedModules.add(module);
+                    }
+                    indicator.setFraction((double) (i + 1) / facet.length);
                 }
+
+                indicator.setIndeterminate(true);
+                indicator.setText2("Removing libraries from " + affectedModules.size() + " module(s)");
+                ApplicationManager.getApplication().invokeAndWait(() -> ApplicationManager.getApplication().runWriteAction(
+                        () -> ProjectRootManagerEx.getInstanceEx(project).mergeRootsChangesDuring(() -> removeResolvedLibraries(project, affectedModules))),
+                        ModalityState.NON_MODAL);
             }
         });
     }
+
+    private static boolean hasResolvedLibraries(Module module) {
+        for (OrderEntry orderEntry : ModuleRootManager.getInstance(module).getOrderEntries()) {
+            if (orderEntry instanceof LibraryOrderEntry && ((LibraryOrderEntry) orderEntry).isModuleLevel()
+                    && IvyIdeaConfigHelper.isCreatedLibraryName(((LibraryOrderEntry) orderEntry).getLibraryName())) {
+                return true;
+            }
+            if (ProjectLibraries.getProjectLibraryName(orderEntry) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void removeResolvedLibraries(Project project, List<Module> modules) {
+        final List<ModifiableRootModel> changedModels = new ArrayList<>(modules.size());
+        try {
+            for (Module module : modules) {
+                if (module.isDisposed()) {
+                    continue;
+                }
+                final ModifiableRootModel model = ModuleRootManager.getInstance(module).getModifiableModel();
+                changedModels.add(model);
+                final LibraryTable moduleLibraryTable = model.getModuleLibraryTable();
+                for (final Library library : moduleLibraryTable.getLibraries()) {
+                    if (IvyIdeaConfigHelper.isCreatedLibraryName(library.getName())) {
+                        moduleLibraryTable.removeLibrary(library);
+                    }
+                }
+                ProjectLibraries.removeLibraryEntries(model);
+            }
+        } catch (RuntimeException | Error e) {
+            for (ModifiableRootModel changedModel : changedModels) {
+                changedModel.dispose();
+            }
+            throw e;
+        }
+        if (!changedModels.isEmpty()) {
+            ModifiableModelCommitter.multiCommit(changedModels.toArray(new ModifiableRootModel[0]), ModuleManager.getInstance(project).getModifiableModel());
+        }
+        new ProjectLibraries(project).removeUnusedLibraries();
+    }
 }
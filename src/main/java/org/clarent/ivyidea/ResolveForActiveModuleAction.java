@@ -23,16 +23,23 @@ import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
+import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
 import org.clarent.ivyidea.exception.IvyFileReadException;
 import org.clarent.ivyidea.exception.IvySettingsFileReadException;
 import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
 import org.clarent.ivyidea.intellij.IntellijUtils;
+import org.clarent.ivyidea.intellij.IvyIdeaMissingArtifactsService;
 import org.clarent.ivyidea.intellij.task.IvyIdeaResolveBackgroundTask;
 import org.clarent.ivyidea.ivy.IvyManager;
+import org.clarent.ivyidea.ivy.ResolveSession;
 import org.clarent.ivyidea.resolve.IntellijDependencyResolver;
+import org.clarent.ivyidea.resolve.ParallelArtifactDownloader;
+import org.clarent.ivyidea.resolve.ParallelDependencyResolver;
+import org.clarent.ivyidea.resolve.ResolveInputs;
 import org.jetbrains.annotations.NotNull;
 
 import java.text.MessageFormat;
+import java.util.List;
 
 /**
  * Action to resolve the dependencies for the active module.
@@ -52,13 +59,23 @@ public class ResolveForActiveModuleAction extends AbstractResolveAction {
                 public void doResolve(@NotNull ProgressIndicator progressIndicator) throws IvySettingsNotFoundException, IvyFileReadException, IvySettingsFileReadException {
                     clearConsole(myProject);
 
-                    final IvyManager ivyManager = new IvyManager();
-                    getProgressMonitorThread().setIvy(ivyManager.getIvy(module));
+                    try (ResolveSession session = IvyManager.getInstance(myProject).beginResolveSession()) {
+                        getProgressMonitor().useDependencyFraction();
+                        final String inputFingerprint = new ResolveInputs(session).getFingerprint(module);
 
-                    final IntellijDependencyResolver resolver = new IntellijDependencyResolver(ivyManager);
-                    resolver.resolve(module);
-                    updateIntellijModel(module, resolver.getExternalDependencies(), resolver.getInternalDependencies());
-                    reportProblems(module, resolver.getProblems());
+                        // resolve on a worker of its own, the monitor may have to stop it when the task is cancelled
+                        final List<IntellijDependencyResolver> resolvers = new ParallelDependencyResolver(session, 1).resolve(new Module[]{module}, progressIndicator, getProgressMonitor());
+                        new ParallelArtifactDownloader(IvyIdeaConfigHelper.getDownloadThreadCount(myProject), IvyIdeaMissingArtifactsService.getInstance(myProject), session).download(resolvers, progressIndicator, getProgressMonitor());
+                        if (progressIndicator.isCanceled()) {
+                            return;
+                        }
+                        final IntellijDependencyResolver resolver = resolvers.get(0);
+                        reportResolverMetrics(myProject, session.getResolverMetrics());
+                        final String repeatableInputFingerprint = getRepeatableInputFingerprint(resolver, inputFingerprint);
+                        updateIntellijModel(session, module, resolver.getExternalDependencies(), resolver.getInternalDependencies(), repeatableInputFingerprint);
+                        reportProblems(module, resolver.getProblems());
+                        saveSnapshot(resolver, repeatableInputFingerprint);
+                    }
                 }
             });
         }
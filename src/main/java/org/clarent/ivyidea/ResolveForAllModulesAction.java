@@ -23,17 +23,28 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
 import org.clarent.ivyidea.exception.IvyFileReadException;
 import org.clarent.ivyidea.exception.IvySettingsFileReadException;
 import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
 import org.clarent.ivyidea.intellij.IntellijUtils;
+import org.clarent.ivyidea.intellij.IvyIdeaMissingArtifactsService;
+import org.clarent.ivyidea.intellij.IvyIdeaResolveStateService;
+import org.clarent.ivyidea.intellij.model.ModuleDependencyBatch;
 import org.clarent.ivyidea.intellij.task.IvyIdeaResolveBackgroundTask;
 import org.clarent.ivyidea.ivy.IvyManager;
+import org.clarent.ivyidea.ivy.ResolveSession;
 import org.clarent.ivyidea.resolve.IntellijDependencyResolver;
+import org.clarent.ivyidea.resolve.ParallelArtifactDownloader;
+import org.clarent.ivyidea.resolve.ParallelDependencyResolver;
+import org.clarent.ivyidea.resolve.ResolveInputs;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Action to resolve the dependencies for all modules that have an IvyIDEA facet configured.
@@ -46,32 +57,77 @@ public class ResolveForAllModulesAction extends AbstractResolveAction {
         FileDocumentManager.getInstance().saveAllDocuments();
 
         final Project project = PlatformDataKeys.PROJECT.getData(e.getDataContext());
-        ProgressManager.getInstance().run(new IvyIdeaResolveBackgroundTask(project, e) {
-            public void doResolve(final @NotNull ProgressIndicator indicator) throws IvySettingsNotFoundException, IvyFileReadException, IvySettingsFileReadException {
-                clearConsole(myProject);
-
-                final IvyManager ivyManager = new IvyManager();
+        ProgressManager.getInstance().run(createResolveTask(project, e.getPresentation().getText(), IntellijUtils.getAllModulesWithIvyIdeaFacet(project),
+                IvyIdeaConfigHelper.isSkipUnchangedModules(project), false, null));
+    }
 
-                Collection<IntellijDependencyResolver> resolvers = new ArrayList<>();
-                for (final Module module : IntellijUtils.getAllModulesWithIvyIdeaFacet(project)) {
-                    getProgressMonitorThread().setIvy(ivyManager.getIvy(module));
-                    indicator.setText2("Resolving for module " + module.getName());
-                    final IntellijDependencyResolver resolver = new IntellijDependencyResolver(ivyManager);
-                    resolver.resolve(module);
-                    resolvers.add(resolver);
+    /**
+     * Creates the task that resolves the given modules. It is also used to resolve modules automatically when their
+     * ivy files change.
+     *
+     * @param project the project the modules belong to
+     * @param title the title of the task
+     * @param modules the modules to resolve
+     * @param skipUnchangedModules if true, modules whose resolve inputs did not change since their last resolve are
+     *                             skipped, see {@link IvyIdeaResolveStateService}
+     * @param quietWhenUnchanged if true, nothing is reported (and the console is left as is) when all modules are skipped
+     * @param whenFinished called on the event dispatch thread when the task has finished, may be null
+     * @return the task, to be run through the {@link ProgressManager}
+     */
+    public IvyIdeaResolveBackgroundTask createResolveTask(final Project project, String title, final Module[] modules, final boolean skipUnchangedModules, final boolean quietWhenUnchanged, @Nullable final Runnable whenFinished) {
+        return new IvyIdeaResolveBackgroundTask(project, title) {
+            public void doResolve(final @NotNull ProgressIndicator indicator) throws IvySettingsNotFoundException, IvyFileReadException, IvySettingsFileReadException {
+                try (ResolveSession session = IvyManager.getInstance(project).beginResolveSession()) {
+                    // Compute the inputs before resolving, so that changes made while resolving are picked up next time
+                    indicator.setText2("Checking modules for changes");
+                    final ResolveInputs resolveInputs = new ResolveInputs(session);
+                    final IvyIdeaResolveStateService resolveState = IvyIdeaResolveStateService.getInstance(project);
+                    final Map<Module, String> inputFingerprints = new HashMap<>();
+                    final List<Module> modulesToResolve = new ArrayList<>();
+                    for (Module module : modules) {
+                        indicator.checkCanceled();
+                        final String inputFingerprint = resolveInputs.getFingerprint(module);
+                        inputFingerprints.put(module, inputFingerprint);
+                        if (!skipUnchangedModules || !resolveState.isUnchanged(module, inputFingerprint)) {
+                            modulesToResolve.add(module);
+                        }
+                    }
+                    if (modulesToResolve.isEmpty() && quietWhenUnchanged) {
+                        return;
+                    }
+                    clearConsole(myProject);
+                    reportSkippedModules(project, inputFingerprints.size() - modulesToResolve.size());
 
+                    final ParallelDependencyResolver parallelResolver = new ParallelDependencyResolver(session, IvyIdeaConfigHelper.getResolveThreadCount(project));
+                    final List<IntellijDependencyResolver> resolvers = parallelResolver.resolve(modulesToResolve.toArray(new Module[0]), indicator, getProgressMonitor());
+                    new ParallelArtifactDownloader(IvyIdeaConfigHelper.getDownloadThreadCount(project), IvyIdeaMissingArtifactsService.getInstance(project), session).download(resolvers, indicator, getProgressMonitor());
                     if (indicator.isCanceled()) {
                         return;
                     }
+                    reportResolverMetrics(project, session.getResolverMetrics());
+
+                    final ModuleDependencyBatch batch = new ModuleDependencyBatch(session);
+                    final Map<Module, String> repeatableInputFingerprints = new HashMap<>();
+                    for (IntellijDependencyResolver resolver : resolvers) {
+                        Module module = resolver.getModule();
+                        final String repeatableInputFingerprint = getRepeatableInputFingerprint(resolver, inputFingerprints.get(module));
+                        batch.add(module, resolver.getExternalDependencies(), resolver.getInternalDependencies());
+                        reportProblems(module, resolver.getProblems());
+                        saveSnapshot(resolver, repeatableInputFingerprint);
+                        repeatableInputFingerprints.put(module, repeatableInputFingerprint);
+                    }
+                    updateIntellijModel(batch, repeatableInputFingerprints);
                 }
+            }
 
-                for (IntellijDependencyResolver resolver : resolvers) {
-                    Module module = resolver.getModule();
-                    updateIntellijModel(module, resolver.getExternalDependencies(), resolver.getInternalDependencies());
-                    reportProblems(module, resolver.getProblems());
+            @Override
+            public void onFinished() {
+                super.onFinished();
+                if (whenFinished != null) {
+                    whenFinished.run();
                 }
             }
-        });
+        };
     }
 
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea;
+
+import com.intellij.execution.ui.ConsoleViewContentType;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import org.clarent.ivyidea.intellij.IntellijUtils;
+import org.clarent.ivyidea.intellij.model.ModuleDependencyBatch;
+import org.clarent.ivyidea.intellij.task.IvyIdeaBackgroundTask;
+import org.clarent.ivyidea.ivy.IvyManager;
+import org.clarent.ivyidea.ivy.ResolveSession;
+import org.clarent.ivyidea.resolve.problem.ResolveProblem;
+import org.clarent.ivyidea.resolve.snapshot.ResolveSnapshot;
+import org.clarent.ivyidea.resolve.snapshot.ResolveSnapshotStore;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Action to rebuild the IvyIDEA libraries of all modules from the snapshots taken after their last resolve, without
+ * running Ivy. Modules without a snapshot are left untouched.
+ */
+public class RestoreFromSnapshotAction extends AbstractResolveAction {
+
+    public void actionPerformed(AnActionEvent e) {
+        final Project project = PlatformDataKeys.PROJECT.getData(e.getDataContext());
+        ProgressManager.getInstance().run(new IvyIdeaBackgroundTask(e) {
+            public void run(@NotNull final ProgressIndicator indicator) {
+                clearConsole(project);
+
+                try (ResolveSession session = IvyManager.getInstance(project).beginResolveSession()) {
+                    final ResolveSnapshotStore snapshotStore = ResolveSnapshotStore.forProject(project);
+                    final Module[] modules = IntellijUtils.getAllModulesWithIvyIdeaFacet(project);
+                    final ModuleDependencyBatch batch = new ModuleDependencyBatch(session);
+                    final Map<Module, String> inputFingerprints = new HashMap<>();
+                    int missingSnapshots = 0;
+                    indicator.setIndeterminate(false);
+                    for (int i = 0; i < modules.length; i++) {
+                        indicator.checkCanceled();
+                        final Module module = modules[i];
+                        indicator.setText2("Restoring libraries of module " + module.getName());
+                        final ResolveSnapshot snapshot = snapshotStore.load(module);
+                        if (snapshot == null) {
+                            missingSnapshots++;
+                        } else {
+                            final List<ResolveProblem> problems = ResolveSnapshotStore.getProblems(snapshot, project);
+                            batch.add(module, ResolveSnapshotStore.getExternalDependencies(snapshot), ResolveSnapshotStore.getInternalDependencies(snapshot, project));
+                            reportProblems(module, problems);
+                            // snapshots only hold the fingerprint of resolves that can be skipped
+                            inputFingerprints.put(module, problems.isEmpty() ? snapshot.getInputFingerprint() : null);
+                        }
+                        indicator.setFraction((double) (i + 1) / modules.length);
+                    }
+                    updateIntellijModel(batch, inputFingerprints);
+                    reportMissingSnapshots(project, missingSnapshots);
+                }
+            }
+        });
+    }
+
+    private static void reportMissingSnapshots(final Project project, final int missingSnapshots) {
+        if (missingSnapshots == 0) {
+            return;
+        }
+        ApplicationManager.getApplication().invokeLater(() -> IntellijUtils.getConsoleView(project).print(
+                missingSnapshots + " module(s) have not been resolved yet and were left untouched.\n",
+                ConsoleViewContentType.NORMAL_OUTPUT));
+    }
+}
@@ -29,6 +29,8 @@ import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
 import org.clarent.ivyidea.intellij.IvyIdeaProjectService;
 import org.clarent.ivyidea.intellij.facet.config.FacetPropertiesSettings;
 import org.clarent.ivyidea.intellij.facet.config.IvyIdeaFacetConfiguration;
+import org.clarent.ivyidea.ivy.IvySettingsFingerprint;
+import org.clarent.ivyidea.ivy.TrackingIvySettings;
 import org.clarent.ivyidea.logging.IvyLogLevel;
 import org.clarent.ivyidea.util.CollectionUtils;
 import org.clarent.ivyidea.util.StringUtils;
@@ -55,10 +57,14 @@ public class IvyIdeaConfigHelper {
     private static final String RESOLVED_LIB_NAME_ROOT = "IvyIDEA";
 
     public static String getCreatedLibraryName(final ModifiableRootModel model, final String configName) {
-        final Project project = model.getProject();
+        return getCreatedLibraryName(model.getModule(), configName);
+    }
+
+    public static String getCreatedLibraryName(final Module module, final String configName) {
+        final Project project = module.getProject();
         String libraryName = RESOLVED_LIB_NAME_ROOT;
         if (isLibraryNameIncludesModule(project)) {
-            final String moduleName = model.getModule().getName();
+            final String moduleName = module.getName();
             libraryName += "-" + moduleName;
         }
         if (isLibraryNameIncludesConfiguration(project)) {
@@ -114,6 +120,17 @@ public class IvyIdeaConfigHelper {
         return getProjectConfig(project).isLibraryNameIncludesConfiguration();
     }
 
+    /**
+     * Checks whether the resolved artifacts go into project libraries shared by all modules, one per resolved module
+     * revision and set of files, rather than into libraries of each module itself.
+     *
+     * @param project the project for which to check
+     * @return true if modules should refer to shared project libraries
+     */
+    public static boolean isUseProjectLibraries(final Project project) {
+        return getProjectConfig(project).isUseProjectLibraries();
+    }
+
     public static IvyLogLevel getIvyLoggingThreshold(final Project project) {
         String ivyLogLevelThreshold = getProjectConfig(project).getIvyLogLevelThreshold();
         return IvyLogLevel.fromName(ivyLogLevelThreshold);
@@ -135,6 +152,57 @@ public class IvyIdeaConfigHelper {
         return getProjectConfig(project).isDetectDependenciesOnOtherModules();
     }
 
+    /**
+     * Looks up the number of modules that may be resolved at the same time.
+     *
+     * @param project the project for which to check
+     * @return the configured number of resolve threads, never less than 1
+     */
+    public static int getResolveThreadCount(final Project project) {
+        return Math.max(1, getProjectConfig(project).getResolveThreadCount());
+    }
+
+    /**
+     * Looks up the number of sources and javadoc artifacts that may be downloaded at the same time.
+     *
+     * @param project the project for which to check
+     * @return the configured number of download threads, never less than 1
+     */
+    public static int getDownloadThreadCount(final Project project) {
+        return Math.max(1, getProjectConfig(project).getDownloadThreadCount());
+    }
+
+    /**
+     * Looks up how long sources and javadoc artifacts that could not be found are not looked for again.
+     *
+     * @param project the project for which to check
+     * @return the number of hours, 0 if missing artifacts should be looked for on every resolve
+     */
+    public static int getMissingArtifactRetentionHours(final Project project) {
+        return Math.max(0, getProjectConfig(project).getMissingArtifactRetentionHours());
+    }
+
+    /**
+     * Checks whether resolving for all modules may skip the modules for which nothing that goes into the resolve has
+     * changed since they were last resolved.
+     *
+     * @param project the project for which to check
+     * @return true if unchanged modules should be skipped
+     */
+    public static boolean isSkipUnchangedModules(final Project project) {
+        return getProjectConfig(project).isSkipUnchangedModules();
+    }
+
+    /**
+     * Checks whether modules should be resolved automatically when their ivy file changes on disk.
+     *
+     * @param project the project for which to check
+     * @return true if changed modules should be resolved automatically
+     */
+    public static boolean isAutoResolveOnIvyFileChange(final Project project) {
+        return getProjectConfig(project).isAutoResolveOnIvyFileChange();
+    }
+
     @NotNull
     private static IvyIdeaProjectSettings getProjectConfig(Project project) {
         IvyIdeaProjectService component = project.getService(IvyIdeaProjectService.class);
@@ -205,13 +273,24 @@ public class IvyIdeaConfigHelper {
 
     @NotNull
     public static Properties getIvyProperties(Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
+        return loadProperties(module, getIvyPropertiesFiles(module));
+    }
+
+    /**
+     * Looks up the properties files that are injected in the ivy settings of the given module.
+     *
+     * @param module the module for which to check
+     * @return the module properties files, followed by the project properties files if the module includes them
+     */
+    @NotNull
+    public static List<String> getIvyPropertiesFiles(Module module) {
         final IvyIdeaFacetConfiguration moduleConfiguration = getModuleConfiguration(module);
         final List<String> propertiesFiles = new ArrayList<>(moduleConfiguration.getPropertiesSettings().getPropertyFiles());
         final FacetPropertiesSettings modulePropertiesSettings = moduleConfiguration.getPropertiesSettings();
         if (modulePropertiesSettings.isIncludeProjectLevelPropertiesFiles()) {
             propertiesFiles.addAll(getProjectConfig(module.getProject()).getPropertiesSettings().getPropertyFiles());
         }
-        return loadProperties(module, propertiesFiles);
+        return propertiesFiles;
     }
 
     @NotNull
@@ -235,14 +314,38 @@ public class IvyIdeaConfigHelper {
         return properties;
     }
 
+    /**
+     * Determines the effective settings for the given module; modules with the same fingerprint get identically
+     * configured Ivy settings.
+     *
+     * @param module the module for which to compute the fingerprint
+     * @return the fingerprint of the settings file, merged properties and, if the properties use it, the base dir
+     *         used for the given module
+     */
     @NotNull
-    public static IvySettings createConfiguredIvySettings(Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
+    public static IvySettingsFingerprint getIvySettingsFingerprint(Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
+        return getIvySettingsFingerprint(module, getIvySettingsFile(module), getIvyProperties(module));
+    }
+
+    /**
+     * @param module the module for which the settings are used
+     * @param settingsFile the settings file, null for the ivy defaults
+     * @param properties the merged properties
+     * @return the fingerprint of the given settings file and properties used for the given module
+     */
+    @NotNull
+    public static IvySettingsFingerprint getIvySettingsFingerprint(Module module, @Nullable String settingsFile, Properties properties) {
+        return IvySettingsFingerprint.forModule(settingsFile, properties, getDefaultBaseDir(module));
+    }
+
+    @NotNull
+    public static TrackingIvySettings createConfiguredIvySettings(Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
         return createConfiguredIvySettings(module, getIvySettingsFile(module), getIvyProperties(module));
     }
 
     @NotNull
-    public static IvySettings createConfiguredIvySettings(Module module, @Nullable String settingsFile, Properties properties) throws IvySettingsFileReadException {
-        IvySettings s = new IvySettings();
+    public static TrackingIvySettings createConfiguredIvySettings(Module module, @Nullable String settingsFile, Properties properties) throws IvySettingsFileReadException {
+        TrackingIvySettings s = new TrackingIvySettings(url -> HttpConfigurable.getInstance().openHttpConnection(url.toExternalForm()));
         injectProperties(s, module, properties); // inject our properties; they may be needed to parse the settings file
 
         try {
@@ -291,12 +394,20 @@ public class IvyIdeaConfigHelper {
     }
 
     private static void fillDefaultBaseDir(IvySettings ivySettings, Module module) {
-        final File moduleFileFolder = new File(module.getModuleFilePath()).getParentFile();
+        final File moduleFileFolder = getDefaultBaseDir(module);
         if (moduleFileFolder != null) {
             ivySettings.setBaseDir(moduleFileFolder.getAbsoluteFile());
         }
     }
 
+    /**
+     * @return the base dir the settings of the given module are loaded with, unless the properties override it
+     */
+    @Nullable
+    public static File getDefaultBaseDir(Module module) {
+        return new File(module.getModuleFilePath()).getParentFile();
+    }
+
     private static IvyIdeaFacetConfiguration getModuleConfiguration(Module module) {
         final IvyIdeaFacetConfiguration moduleConfiguration = IvyIdeaFacetConfiguration.getInstance(module);
         if (moduleConfiguration == null) {
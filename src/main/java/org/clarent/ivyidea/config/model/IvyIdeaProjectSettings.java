@@ -34,7 +34,13 @@ public class IvyIdeaProjectSettings {
     private boolean alwaysAttachJavadocs = true;
     private boolean libraryNameIncludesModule = false;
     private boolean libraryNameIncludesConfiguration = false;
+    private boolean useProjectLibraries = false;
     private boolean detectDependenciesOnOtherModules = true;
+    private int resolveThreadCount = 4;
+    private int downloadThreadCount = 4;
+    private int missingArtifactRetentionHours = 24;
+    private boolean skipUnchangedModules = false;
+    private boolean autoResolveOnIvyFileChange = false;
     private String ivyLogLevelThreshold = IvyLogLevel.None.name();
 
 
@@ -130,6 +136,14 @@ public class IvyIdeaProjectSettings {
         this.libraryNameIncludesConfiguration = libraryNameIncludesConfiguration;
     }
 
+    public boolean isUseProjectLibraries() {
+        return useProjectLibraries;
+    }
+
+    public void setUseProjectLibraries(final boolean useProjectLibraries) {
+        this.useProjectLibraries = useProjectLibraries;
+    }
+
     public boolean isDetectDependenciesOnOtherModules() {
         return detectDependenciesOnOtherModules;
     }
@@ -138,6 +152,46 @@ public class IvyIdeaProjectSettings {
         this.detectDependenciesOnOtherModules = detectDependenciesOnOtherModules;
     }
 
+    public int getResolveThreadCount() {
+        return resolveThreadCount;
+    }
+
+    public void setResolveThreadCount(int resolveThreadCount) {
+        this.resolveThreadCount = resolveThreadCount;
+    }
+
+    public int getDownloadThreadCount() {
+        return downloadThreadCount;
+    }
+
+    public void setDownloadThreadCount(int downloadThreadCount) {
+        this.downloadThreadCount = downloadThreadCount;
+    }
+
+    public int getMissingArtifactRetentionHours() {
+        return missingArtifactRetentionHours;
+    }
+
+    public void setMissingArtifactRetentionHours(int missingArtifactRetentionHours) {
+        this.missingArtifactRetentionHours = missingArtifactRetentionHours;
+    }
+
+    public boolean isSkipUnchangedModules() {
+        return skipUnchangedModules;
+    }
+
+    public void setSkipUnchangedModules(boolean skipUnchangedModules) {
+        this.skipUnchangedModules = skipUnchangedModules;
+    }
+
+    public boolean isAutoResolveOnIvyFileChange() {
+        return autoResolveOnIvyFileChange;
+    }
+
+    public void setAutoResolveOnIvyFileChange(boolean autoResolveOnIvyFileChange) {
+        this.autoResolveOnIvyFileChange = autoResolveOnIvyFileChange;
+    }
+
     public String getIvyLogLevelThreshold() {
         return ivyLogLevelThreshold;
     }
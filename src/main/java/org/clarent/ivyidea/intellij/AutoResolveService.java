@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.Alarm;
+import org.clarent.ivyidea.ResolveForAllModulesAction;
+import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Resolves modules in the background after their ivy files changed.
+ *
+ * Changes are collected until no new ones arrive for a short while, so that a version control update touching many
+ * ivy files leads to a single resolve of all affected modules. Changes arriving while that resolve runs are resolved
+ * right after it.
+ */
+public class AutoResolveService implements Disposable {
+
+    private static final Logger LOGGER = Logger.getLogger(AutoResolveService.class.getName());
+
+    private static final int DELAY_MILLIS = 2000;
+
+    private final Project project;
+    private final Alarm alarm;
+    private final Set<Module> pendingModules = new LinkedHashSet<>();
+    private boolean resolving;
+
+    public static AutoResolveService getInstance(Project project) {
+        return project.getService(AutoResolveService.class);
+    }
+
+    public AutoResolveService(Project project) {
+        this.project = project;
+        this.alarm = new Alarm(Alarm.ThreadToUse.SWING_THREAD, this);
+    }
+
+    /**
+     * Schedules the given modules to be resolved once the ivy files stop changing; to be called on the event
+     * dispatch thread.
+     */
+    public void scheduleResolve(@NotNull Collection<Module> modules) {
+        pendingModules.addAll(modules);
+        alarm.cancelAllRequests();
+        alarm.addRequest(this::resolvePendingModules, DELAY_MILLIS);
+    }
+
+    private void resolvePendingModules() {
+        if (resolving) {
+            // picked up when the running resolve is done
+            return;
+        }
+        pendingModules.removeIf(module -> module.isDisposed());
+        if (pendingModules.isEmpty() || project.isDisposed()) {
+            return;
+        }
+        final Module[] modules = pendingModules.toArray(new Module[0]);
+        pendingModules.clear();
+        LOGGER.info("Automatically resolving " + modules.length + " module(s) with changed ivy files");
+
+        final ResolveForAllModulesAction resolveAction = (ResolveForAllModulesAction) ActionManager.getInstance().getAction("IvyIDEA.UpdateAllDependencies");
+        resolving = true;
+        ProgressManager.getInstance().run(resolveAction.createResolveTask(project, "Resolve for Changed Ivy Files", modules,
+                IvyIdeaConfigHelper.isSkipUnchangedModules(project), true, () -> {
+            resolving = false;
+            if (!pendingModules.isEmpty()) {
+                alarm.cancelAllRequests();
+                alarm.addRequest(this::resolvePendingModules, DELAY_MILLIS);
+            }
+        }));
+    }
+
+    public void dispose() {
+        pendingModules.clear();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCopyEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
+import org.clarent.ivyidea.intellij.facet.config.IvyIdeaFacetConfiguration;
+import org.clarent.ivyidea.util.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Picks up saved, created and updated ivy files and hands their modules to the {@link AutoResolveService}, when
+ * automatic resolving is enabled for the project. Files moved or renamed to or away from a configured ivy file path
+ * count as changes to that ivy file.
+ */
+public class IvyFileChangeListener implements BulkFileListener {
+
+    private final Project project;
+
+    public IvyFileChangeListener(Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public void after(@NotNull List<? extends VFileEvent> events) {
+        if (project.isDisposed() || !IvyIdeaConfigHelper.isAutoResolveOnIvyFileChange(project)) {
+            return;
+        }
+        Map<String, List<Module>> modulesByIvyFile = null;
+        final Set<Module> changedModules = new LinkedHashSet<>();
+        for (VFileEvent event : events) {
+            final List<String> paths = getChangedPaths(event);
+            if (paths.isEmpty()) {
+                continue;
+            }
+            if (modulesByIvyFile == null) {
+                modulesByIvyFile = getModulesByIvyFile();
+            }
+            for (String path : paths) {
+                final List<Module> modules = modulesByIvyFile.get(path);
+                if (modules != null) {
+                    changedModules.addAll(modules);
+                }
+            }
+        }
+        if (!changedModules.isEmpty()) {
+            AutoResolveService.getInstance(project).scheduleResolve(changedModules);
+        }
+    }
+
+    /**
+     * @return the paths whose content may have changed through the given event: the new and the old path of moved or
+     *         renamed files
+     */
+    @NotNull
+    private static List<String> getChangedPaths(VFileEvent event) {
+        if (event instanceof VFileContentChangeEvent || event instanceof VFileCreateEvent || event instanceof VFileCopyEvent) {
+            return Collections.singletonList(event.getPath());
+        }
+        if (event instanceof VFileMoveEvent) {
+            return Arrays.asList(event.getPath(), ((VFileMoveEvent) event).getOldPath());
+        }
+        if (event instanceof VFilePropertyChangeEvent && ((VFilePropertyChangeEvent) event).isRename()) {
+            return Arrays.asList(event.getPath(), ((VFilePropertyChangeEvent) event).getOldPath());
+        }
+        return Collections.emptyList();
+    }
+
+    @NotNull
+    private Map<String, List<Module>> getModulesByIvyFile() {
+        final Map<String, List<Module>> result = new HashMap<>();
+        for (Module module : IntellijUtils.getAllModulesWithIvyIdeaFacet(project)) {
+            final IvyIdeaFacetConfiguration configuration = IvyIdeaFacetConfiguration.getInstance(module);
+            if (configuration != null && !StringUtils.isBlank(configuration.getIvyFile())) {
+                final String path = FileUtil.toSystemIndependentName(new File(configuration.getIvyFile()).getAbsolutePath());
+                result.computeIfAbsent(path, key -> new ArrayList<>()).add(module);
+            }
+        }
+        return result;
+    }
+}
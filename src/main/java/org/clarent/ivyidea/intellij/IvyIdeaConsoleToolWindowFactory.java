@@ -24,6 +24,9 @@ import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowFactory;
 import com.intellij.ui.content.Content;
 import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.content.ContentManagerEvent;
+import com.intellij.ui.content.ContentManagerListener;
+import org.clarent.ivyidea.intellij.ui.ResolveTimingsPanel;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -39,6 +42,18 @@ public class IvyIdeaConsoleToolWindowFactory implements ToolWindowFactory, DumbA
         ConsoleView console = ServiceManager.getService(project, IvyIdeaConsoleService.class).getConsoleView();
         Content content = ServiceManager.getService(ContentFactory.class).createContent(console.getComponent(), "Console", true);
         toolWindow.getContentManager().addContent(content);
+
+        final ResolveTimingsPanel timingsPanel = new ResolveTimingsPanel(project);
+        final Content timingsContent = ServiceManager.getService(ContentFactory.class).createContent(timingsPanel, "Timings", true);
+        toolWindow.getContentManager().addContent(timingsContent);
+        toolWindow.getContentManager().addContentManagerListener(new ContentManagerListener() {
+            @Override
+            public void selectionChanged(@NotNull ContentManagerEvent event) {
+                if (event.getContent() == timingsContent && event.getOperation() == ContentManagerEvent.ContentOperation.add) {
+                    timingsPanel.refresh();
+                }
+            }
+        });
     }
 
     @Override
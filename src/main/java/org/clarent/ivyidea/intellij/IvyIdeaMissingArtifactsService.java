@@ -0,0 +1,124 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Remembers the sources and javadoc artifacts that none of the repositories could provide, so that they aren't looked
+ * up again on every resolve. Entries expire after the number of hours configured in the project settings; setting it
+ * to 0 disables this cache.
+ */
+@State(
+        name = IvyIdeaMissingArtifactsService.COMPONENT_NAME,
+        storages = {@Storage(StoragePathMacros.WORKSPACE_FILE)}
+)
+public class IvyIdeaMissingArtifactsService implements PersistentStateComponent<IvyIdeaMissingArtifactsService.MissingArtifactsState> {
+
+    public static final String COMPONENT_NAME = "IvyIDEA.MissingArtifacts";
+
+    private static final long MILLIS_PER_HOUR = 60L * 60L * 1000L;
+
+    private final Project project;
+    private final MissingArtifactsState internalState = new MissingArtifactsState();
+
+    public static IvyIdeaMissingArtifactsService getInstance(Project project) {
+        return project.getService(IvyIdeaMissingArtifactsService.class);
+    }
+
+    public IvyIdeaMissingArtifactsService(Project project) {
+        this.project = project;
+    }
+
+    @NotNull
+    public MissingArtifactsState getState() {
+        return internalState;
+    }
+
+    public void loadState(@NotNull MissingArtifactsState state) {
+        XmlSerializerUtil.copyBean(state, this.getState());
+    }
+
+    /**
+     * @param artifact the artifact to check
+     * @return true if the artifact could not be found the last time it was looked for, and that is recent enough
+     */
+    public synchronized boolean isKnownMissing(@NotNull Artifact artifact) {
+        final long retentionMillis = getRetentionMillis();
+        if (retentionMillis <= 0) {
+            return false;
+        }
+        final Long missingSince = internalState.getMissingArtifacts().get(getKey(artifact));
+        return missingSince != null && System.currentTimeMillis() - missingSince < retentionMillis;
+    }
+
+    /**
+     * Records that none of the repositories has the given artifact.
+     */
+    public synchronized void setMissing(@NotNull Artifact artifact) {
+        final long retentionMillis = getRetentionMillis();
+        if (retentionMillis <= 0) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        // copy on write, so the map can be serialized while artifacts are being downloaded
+        final Map<String, Long> missingArtifacts = new TreeMap<>(internalState.getMissingArtifacts());
+        missingArtifacts.values().removeIf(missingSince -> now - missingSince >= retentionMillis);
+        missingArtifacts.put(getKey(artifact), now);
+        internalState.setMissingArtifacts(missingArtifacts);
+    }
+
+    /**
+     * Forgets all missing artifacts, so they are looked for again on the next resolve.
+     */
+    public synchronized void clear() {
+        internalState.setMissingArtifacts(new TreeMap<>());
+    }
+
+    private long getRetentionMillis() {
+        return IvyIdeaConfigHelper.getMissingArtifactRetentionHours(project) * MILLIS_PER_HOUR;
+    }
+
+    @NotNull
+    private static String getKey(@NotNull Artifact artifact) {
+        return artifact.getModuleRevisionId() + "!" + artifact.getName() + "(" + artifact.getType() + ")";
+    }
+
+    public static class MissingArtifactsState {
+
+        private Map<String, Long> missingArtifacts = new TreeMap<>();
+
+        public Map<String, Long> getMissingArtifacts() {
+            return missingArtifacts;
+        }
+
+        public void setMissingArtifacts(Map<String, Long> missingArtifacts) {
+            this.missingArtifacts = missingArtifacts;
+        }
+    }
+}
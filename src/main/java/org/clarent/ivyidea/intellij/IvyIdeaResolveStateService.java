@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij;
+
+import com.intellij.openapi.components.PersistentStateComponent;
+import com.intellij.openapi.components.State;
+import com.intellij.openapi.components.Storage;
+import com.intellij.openapi.components.StoragePathMacros;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Remembers, per module, the fingerprint of the resolve inputs of its last successful resolve (see
+ * {@link org.clarent.ivyidea.resolve.ResolveInputs}). It is kept in the workspace file as it describes the state of
+ * the local IntelliJ model rather than shared configuration.
+ */
+@State(
+        name = IvyIdeaResolveStateService.COMPONENT_NAME,
+        storages = {@Storage(StoragePathMacros.WORKSPACE_FILE)}
+)
+public class IvyIdeaResolveStateService implements PersistentStateComponent<IvyIdeaResolveStateService.ResolveState> {
+
+    public static final String COMPONENT_NAME = "IvyIDEA.ResolveState";
+
+    private final ResolveState internalState = new ResolveState();
+
+    public static IvyIdeaResolveStateService getInstance(Project project) {
+        return project.getService(IvyIdeaResolveStateService.class);
+    }
+
+    @NotNull
+    public ResolveState getState() {
+        return internalState;
+    }
+
+    public void loadState(@NotNull ResolveState state) {
+        XmlSerializerUtil.copyBean(state, this.getState());
+    }
+
+    /**
+     * @param module the module to check
+     * @param inputFingerprint the fingerprint of the current resolve inputs of the module
+     * @return true if the last successful resolve of the module was done with the same inputs
+     */
+    public synchronized boolean isUnchanged(@NotNull Module module, @Nullable String inputFingerprint) {
+        return inputFingerprint != null && inputFingerprint.equals(internalState.getModuleInputs().get(module.getName()));
+    }
+
+    /**
+     * Records the inputs of a resolve of the given module.
+     *
+     * @param module the module that was resolved
+     * @param inputFingerprint the fingerprint of the inputs, null if the resolve did not succeed
+     */
+    public synchronized void setResolved(@NotNull Module module, @Nullable String inputFingerprint) {
+        // copy on write, so the map can be serialized while modules are being resolved
+        final Map<String, String> moduleInputs = new TreeMap<>(internalState.getModuleInputs());
+        if (inputFingerprint == null) {
+            moduleInputs.remove(module.getName());
+        } else {
+            moduleInputs.put(module.getName(), inputFingerprint);
+        }
+        internalState.setModuleInputs(moduleInputs);
+    }
+
+    /**
+     * Forgets all resolves, so that no module is skipped as unchanged the next time it is resolved.
+     */
+    public synchronized void clear() {
+        internalState.setModuleInputs(new TreeMap<>());
+    }
+
+    public static class ResolveState {
+
+        private Map<String, String> moduleInputs = new TreeMap<>();
+
+        public Map<String, String> getModuleInputs() {
+            return moduleInputs;
+        }
+
+        public void setModuleInputs(Map<String, String> moduleInputs) {
+            this.moduleInputs = moduleInputs;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij;
+
+import com.intellij.ide.highlighter.XmlFileType;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.clarent.ivyidea.ivy.IvyModuleInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.*;
+
+/**
+ * Indexes the ivy files in the project by the modules they declare dependencies on, the reverse of the dependencies
+ * in the {@link IvyModuleIndex}, so that the files depending on a module are found without reading all of them.
+ */
+public class IvyModuleDependentsIndex extends ScalarIndexExtension<String> {
+
+    public static final ID<String, Void> NAME = ID.create("org.clarent.ivyidea.IvyModuleDependentsIndex");
+
+    /**
+     * Looks up the ivy files in the project that declare a dependency on the given module.
+     *
+     * @return the ivy files depending on the module, null if the index isn't available (yet)
+     */
+    @Nullable
+    public static List<File> getDependentIvyFiles(@NotNull Project project, @NotNull ModuleId moduleId) {
+        if (DumbService.isDumb(project)) {
+            return null;
+        }
+        try {
+            return ReadAction.compute(() -> {
+                final List<File> result = new ArrayList<>();
+                for (VirtualFile file : FileBasedIndex.getInstance().getContainingFiles(NAME, getKey(moduleId), GlobalSearchScope.projectScope(project))) {
+                    result.add(VfsUtilCore.virtualToIoFile(file));
+                }
+                return result;
+            });
+        } catch (IndexNotReadyException e) {
+            return null;
+        }
+    }
+
+    private static String getKey(ModuleId moduleId) {
+        return moduleId.getOrganisation() + "#" + moduleId.getName();
+    }
+
+    @NotNull
+    @Override
+    public ID<String, Void> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Void, FileContent> getIndexer() {
+        return inputData -> {
+            // most xml files aren't ivy files, so don't bother parsing those
+            if (!StringUtil.contains(inputData.getContentAsText(), "<ivy-module")) {
+                return Collections.emptyMap();
+            }
+            final IvyModuleInfo moduleInfo = IvyModuleInfo.read(new ByteArrayInputStream(inputData.getContent()));
+            if (moduleInfo == null) {
+                return Collections.emptyMap();
+            }
+            final Map<String, Void> result = new HashMap<>();
+            for (ModuleId dependency : moduleInfo.getDependencies()) {
+                result.put(getKey(dependency), null);
+            }
+            return result;
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(XmlFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij;
+
+import com.intellij.ide.highlighter.XmlFileType;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.clarent.ivyidea.ivy.IvyModuleInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes the {@link IvyModuleInfo} of the ivy files in the project, so that the ids, revisions, configurations and
+ * dependencies of the modules are known without parsing the ivy files again. Which files depend on a module is kept
+ * in the {@link IvyModuleDependentsIndex}.
+ */
+public class IvyModuleIndex extends SingleEntryFileBasedIndexExtension<IvyModuleInfo> {
+
+    public static final ID<Integer, IvyModuleInfo> NAME = ID.create("org.clarent.ivyidea.IvyModuleIndex");
+
+    /**
+     * Looks up the info of the given ivy file in the index.
+     *
+     * @return the info of the given ivy file, null if it isn't indexed (yet)
+     */
+    @Nullable
+    public static IvyModuleInfo getModuleInfo(@NotNull Project project, @NotNull File ivyFile) {
+        if (DumbService.isDumb(project)) {
+            return null;
+        }
+        final VirtualFile file = LocalFileSystem.getInstance().findFileByIoFile(ivyFile);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return ReadAction.compute(() -> {
+                final Map<Integer, IvyModuleInfo> data = FileBasedIndex.getInstance().getFileData(NAME, file, project);
+                return data.isEmpty() ? null : data.values().iterator().next();
+            });
+        } catch (IndexNotReadyException e) {
+            return null;
+        }
+    }
+
+    @NotNull
+    @Override
+    public ID<Integer, IvyModuleInfo> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public SingleEntryIndexer<IvyModuleInfo> getIndexer() {
+        return new SingleEntryIndexer<IvyModuleInfo>(false) {
+            @Nullable
+            @Override
+            protected IvyModuleInfo computeValue(@NotNull FileContent inputData) {
+                // most xml files aren't ivy files, so don't bother parsing those
+                if (!StringUtil.contains(inputData.getContentAsText(), "<ivy-module")) {
+                    return null;
+                }
+                return IvyModuleInfo.read(new ByteArrayInputStream(inputData.getContent()));
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<IvyModuleInfo> getValueExternalizer() {
+        return new DataExternalizer<IvyModuleInfo>() {
+            @Override
+            public void save(@NotNull DataOutput out, IvyModuleInfo value) throws IOException {
+                writeNullableString(out, value.getOrganisation());
+                writeNullableString(out, value.getModule());
+                writeNullableString(out, value.getRevision());
+                out.writeBoolean(value.isExtendsParent());
+                DataInputOutputUtil.writeINT(out, value.getConfigurations().size());
+                for (String configuration : value.getConfigurations()) {
+                    IOUtil.writeUTF(out, configuration);
+                }
+                DataInputOutputUtil.writeINT(out, value.getDependencies().size());
+                for (ModuleId dependency : value.getDependencies()) {
+                    IOUtil.writeUTF(out, dependency.getOrganisation());
+                    IOUtil.writeUTF(out, dependency.getName());
+                }
+            }
+
+            @Override
+            public IvyModuleInfo read(@NotNull DataInput in) throws IOException {
+                final String organisation = readNullableString(in);
+                final String module = readNullableString(in);
+                final String revision = readNullableString(in);
+                final boolean extendsParent = in.readBoolean();
+                final int configurationCount = DataInputOutputUtil.readINT(in);
+                final List<String> configurations = new ArrayList<>(configurationCount);
+                for (int i = 0; i < configurationCount; i++) {
+                    configurations.add(IOUtil.readUTF(in));
+                }
+                final int dependencyCount = DataInputOutputUtil.readINT(in);
+                final List<ModuleId> dependencies = new ArrayList<>(dependencyCount);
+                for (int i = 0; i < dependencyCount; i++) {
+                    dependencies.add(ModuleId.newInstance(IOUtil.readUTF(in), IOUtil.readUTF(in)));
+                }
+                return new IvyModuleInfo(organisation, module, revision, extendsParent, configurations, dependencies);
+            }
+        };
+    }
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(XmlFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    private static void writeNullableString(DataOutput out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            IOUtil.writeUTF(out, value);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? IOUtil.readUTF(in) : null;
+    }
+}
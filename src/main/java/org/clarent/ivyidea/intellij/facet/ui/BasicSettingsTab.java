@@ -35,6 +35,7 @@ import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
 import org.clarent.ivyidea.intellij.facet.config.IvyIdeaFacetConfiguration;
 import org.clarent.ivyidea.intellij.facet.ui.components.ConfigurationSelectionTable;
 import org.clarent.ivyidea.intellij.facet.ui.components.ConfigurationSelectionTableModel;
+import org.clarent.ivyidea.ivy.IvyManager;
 import org.clarent.ivyidea.ivy.IvyUtil;
 import org.clarent.ivyidea.util.StringUtils;
 import org.jetbrains.annotations.Nls;
@@ -174,14 +175,12 @@ public class BasicSettingsTab extends FacetEditorTab {
     }
 
     private Set<Configuration> loadConfigurations() throws IvySettingsNotFoundException, IvySettingsFileReadException, ParseException {
-        return IvyUtil.loadConfigurations(txtIvyFile.getText(), createIvyEngineForCurrentSettingsInUI());
-    }
-
-    @NotNull
-    private Ivy createIvyEngineForCurrentSettingsInUI() throws IvySettingsNotFoundException, IvySettingsFileReadException {
         final Module module = this.editorContext.getModule();
-        final IvySettings ivySettings = IvyIdeaConfigHelper.createConfiguredIvySettings(module, this.getIvySettingsFileNameForCurrentSettingsInUI(), getPropertiesForCurrentSettingsInUI());
-        return IvyUtil.createConfiguredIvyEngine(module, ivySettings);
+        final String settingsFile = this.getIvySettingsFileNameForCurrentSettingsInUI();
+        final Properties properties = getPropertiesForCurrentSettingsInUI();
+        final IvySettings ivySettings = IvyIdeaConfigHelper.createConfiguredIvySettings(module, settingsFile, properties);
+        final Ivy ivy = IvyUtil.createConfiguredIvyEngine(module, ivySettings);
+        return IvyUtil.loadConfigurations(txtIvyFile.getText(), ivy, IvyIdeaConfigHelper.getIvySettingsFingerprint(module, settingsFile, properties));
     }
 
     @Nullable
@@ -231,6 +230,7 @@ public class BasicSettingsTab extends FacetEditorTab {
             configuration.setOnlyResolveSelectedConfigs(chkOnlyResolveSpecificConfigs.isSelected());
             configuration.setConfigsToResolve(getNames(tblConfigurationSelection.getSelectedConfigurations()));
             configuration.setIvyFile(txtIvyFile.getText());
+            IvyManager.getInstance(editorContext.getProject()).invalidate(editorContext.getModule());
         }
     }
 
@@ -25,6 +25,7 @@ import com.intellij.ui.UserActivityWatcher;
 import org.clarent.ivyidea.config.ui.orderedfilelist.OrderedFileList;
 import org.clarent.ivyidea.config.ui.propertieseditor.PropertiesEditor;
 import org.clarent.ivyidea.intellij.facet.config.IvyIdeaFacetConfiguration;
+import org.clarent.ivyidea.ivy.IvyManager;
 import org.jetbrains.annotations.Nls;
 
 import javax.swing.*;
@@ -94,6 +95,7 @@ public class PropertiesSettingsTab extends FacetEditorTab  {
         if (facet != null) {
             IvyIdeaFacetConfiguration configuration = (IvyIdeaFacetConfiguration) facet.getConfiguration();
             configuration.getPropertiesSettings().setPropertyFiles(orderedFileList.getFileNames());
+            IvyManager.getInstance(editorContext.getProject()).invalidate(editorContext.getModule());
         }        
     }
 
@@ -16,32 +16,43 @@
 
 package org.clarent.ivyidea.intellij.model;
 
-import com.google.common.collect.Streams;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.roots.LibraryOrderEntry;
 import com.intellij.openapi.roots.ModifiableRootModel;
 import com.intellij.openapi.roots.ModuleOrderEntry;
 import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.roots.OrderEntry;
 import com.intellij.openapi.roots.OrderRootType;
 import com.intellij.openapi.roots.libraries.Library;
-import com.intellij.openapi.roots.libraries.Library.ModifiableModel;
 import com.intellij.openapi.roots.libraries.LibraryTable;
+import com.intellij.openapi.util.SystemInfo;
 import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
 import org.clarent.ivyidea.resolve.dependency.ExternalDependency;
 import org.clarent.ivyidea.resolve.dependency.InternalDependency;
-import org.clarent.ivyidea.resolve.dependency.ResolvedDependency;
 
+import java.io.File;
 import java.util.*;
 
+import static java.util.Arrays.asList;
+
 public class IntellijModuleWrapper implements AutoCloseable {
 
     private final ModifiableRootModel intellijModule;
     private final LibraryModels libraryModels;
+    private final ProjectLibraries sharedLibraries;
 
     public static IntellijModuleWrapper forModule(Module module) {
+        return forModule(module, null);
+    }
+
+    /**
+     * @param sharedLibraries the shared project libraries to use, null to use libraries of the module itself
+     */
+    public static IntellijModuleWrapper forModule(Module module, ProjectLibraries sharedLibraries) {
         ModifiableRootModel modifiableModel = null;
         try {
             modifiableModel = ModuleRootManager.getInstance(module).getModifiableModel();
-            return new IntellijModuleWrapper(modifiableModel);
+            return new IntellijModuleWrapper(modifiableModel, sharedLibraries);
         } catch (RuntimeException e) {
             if (modifiableModel != null) {
                 modifiableModel.dispose();
@@ -50,111 +61,171 @@ public class IntellijModuleWrapper implements AutoCloseable {
         }
     }
 
-    private IntellijModuleWrapper(ModifiableRootModel intellijModule) {
+    private IntellijModuleWrapper(ModifiableRootModel intellijModule, ProjectLibraries sharedLibraries) {
         this.intellijModule = intellijModule;
         this.libraryModels = new LibraryModels(intellijModule);
+        this.sharedLibraries = sharedLibraries;
     }
 
-    public void updateDependencies(Collection<ExternalDependency> resolvedExternalDependencies, Collection<InternalDependency> resolvedInternalDependencies) {
-        Streams.concat(resolvedExternalDependencies.stream(), resolvedInternalDependencies.stream()).forEach(resolvedDependency -> resolvedDependency.addTo(this));
-        removeDependenciesNotInList(resolvedExternalDependencies, resolvedInternalDependencies);
-    }
-
-    public void close() {
-        libraryModels.close();
-        if (intellijModule.isChanged()) {
-            intellijModule.commit();
-        } else {
-            intellijModule.dispose();
+    /**
+     * Compares the IvyIDEA libraries and the module dependencies of the module with the resolved ones, without
+     * changing anything; to be called from within a read action. Dependencies without a file are left out.
+     *
+     * @param sharedLibraries the shared project libraries the module should use, null if it should have libraries of
+     *                        its own
+     * @return the changes to apply with {@link #applyChanges(ModuleChanges)}, empty if the module is up to date
+     */
+    public static ModuleChanges computeChanges(Module module, Collection<ExternalDependency> resolvedExternalDependencies, Collection<InternalDependency> resolvedInternalDependencies, ProjectLibraries sharedLibraries) {
+        final ModuleChanges changes = new ModuleChanges();
+        final LibraryRootDiff rootDiff = new LibraryRootDiff(SystemInfo.isFileSystemCaseSensitive);
+        final Map<String, Map<OrderRootType, List<ExternalDependency>>> resolvedLibraries = new LinkedHashMap<>();
+        final List<ExternalDependency> resolvedSharedDependencies = new ArrayList<>();
+        for (ExternalDependency dependency : resolvedExternalDependencies) {
+            if (dependency.getLocalFile() == null || dependency.isMissing()) {
+                continue;
+            }
+            if (sharedLibraries != null) {
+                resolvedSharedDependencies.add(dependency);
+            } else {
+                resolvedLibraries.computeIfAbsent(LibraryModels.getLibraryName(module, dependency), name -> new HashMap<>())
+                        .computeIfAbsent(dependency.getType(), type -> new ArrayList<>())
+                        .add(dependency);
+            }
         }
-    }
-
-    public String getModuleName() {
-        return intellijModule.getModule().getName();
-    }
 
-    public void addModuleDependency(Module module) {
-        intellijModule.addModuleOrderEntry(module);
-    }
-
-    public void addExternalDependency(ExternalDependency externalDependency) {
-        ModifiableModel libraryModel = libraryModels.getForExternalDependency(externalDependency);
-        libraryModel.addRoot(externalDependency.getUrlForLibraryRoot(), externalDependency.getType());
-    }
-
-    public boolean alreadyHasDependencyOnModule(Module module) {
-        final Module[] existingDependencies = intellijModule.getModuleDependencies();
-        for (Module existingDependency : existingDependencies) {
-            if (existingDependency.getName().equals(module.getName())) {
-                return true;
+        final ModuleRootManager rootManager = ModuleRootManager.getInstance(module);
+        final Set<String> resolvedSharedLibraries = ProjectLibraries.getLibraryNames(resolvedSharedDependencies);
+        final Set<String> missingSharedLibraries = new LinkedHashSet<>(resolvedSharedLibraries);
+        final Map<String, Map<OrderRootType, List<ExternalDependency>>> missingLibraries = new LinkedHashMap<>(resolvedLibraries);
+        for (OrderEntry orderEntry : rootManager.getOrderEntries()) {
+            final String projectLibraryName = ProjectLibraries.getProjectLibraryName(orderEntry);
+            if (projectLibraryName != null) {
+                missingSharedLibraries.remove(projectLibraryName);
+                if (!resolvedSharedLibraries.contains(projectLibraryName)) {
+                    changes.projectLibrariesToRemove.add(projectLibraryName);
+                }
+            } else if (orderEntry instanceof LibraryOrderEntry && ((LibraryOrderEntry) orderEntry).isModuleLevel()) {
+                final Library library = ((LibraryOrderEntry) orderEntry).getLibrary();
+                if (library == null || !IvyIdeaConfigHelper.isCreatedLibraryName(library.getName())) {
+                    continue;
+                }
+                if (!resolvedLibraries.containsKey(library.getName())) {
+                    changes.librariesToRemove.add(library.getName());
+                }
+                final Map<OrderRootType, List<ExternalDependency>> resolvedRoots = missingLibraries.remove(library.getName());
+                if (resolvedRoots == null) {
+                    continue;
+                }
+                for (OrderRootType type : OrderRootType.getAllTypes()) {
+                    final String[] urls = library.getUrls(type);
+                    final List<ExternalDependency> dependencies = resolvedRoots.getOrDefault(type, Collections.emptyList());
+                    final List<File> files = new ArrayList<>(dependencies.size());
+                    for (ExternalDependency dependency : dependencies) {
+                        files.add(dependency.getLocalFile());
+                    }
+                    changes.addRootsToRemove(library.getName(), type, rootDiff.getRootsToRemove(asList(urls), files));
+                    changes.rootsToAdd.addAll(LibraryModels.getDependenciesToAdd(rootDiff, urls, dependencies));
+                }
             }
         }
-        return false;
-    }
-
-    public boolean alreadyHasDependencyOnLibrary(ExternalDependency externalDependency) {
-        ModifiableModel libraryModel = libraryModels.getForExternalDependency(externalDependency);
-        for (String url : libraryModel.getUrls(externalDependency.getType())) {
-            if (externalDependency.isSameDependency(url)) {
-                return true;
+        for (Map<OrderRootType, List<ExternalDependency>> resolvedRoots : missingLibraries.values()) {
+            for (List<ExternalDependency> dependencies : resolvedRoots.values()) {
+                changes.rootsToAdd.addAll(LibraryModels.getDependenciesToAdd(rootDiff, new String[0], dependencies));
             }
         }
-        return false;
-    }
+        if (sharedLibraries != null) {
+            changes.projectLibrariesToAdd.addAll(missingSharedLibraries);
+            changes.projectLibraryRootsToAdd.putAll(sharedLibraries.getMissingRoots(resolvedSharedDependencies));
+        }
 
-    public void removeDependenciesNotInList(Collection<ExternalDependency> externalDependenciesToKeep, Collection<InternalDependency> internalDependenciesToKeep) {
-        for (OrderRootType type : OrderRootType.getAllTypes()) {
-            List<String> dependenciesToRemove = getDependenciesToRemove(type, externalDependenciesToKeep);
-            for (String dependencyUrl : dependenciesToRemove) {
-                libraryModels.removeDependency(type, dependencyUrl);
+        final Set<String> currentModuleDependencies = new HashSet<>();
+        final Set<String> resolvedModuleDependencies = new HashSet<>();
+        for (InternalDependency dependency : resolvedInternalDependencies) {
+            resolvedModuleDependencies.add(dependency.getModuleName());
+        }
+        for (Module moduleDependency : rootManager.getModuleDependencies()) {
+            currentModuleDependencies.add(moduleDependency.getName());
+            if (!resolvedModuleDependencies.contains(moduleDependency.getName())) {
+                changes.moduleDependenciesToRemove.add(moduleDependency);
+            }
+        }
+        for (InternalDependency dependency : resolvedInternalDependencies) {
+            if (currentModuleDependencies.add(dependency.getModuleName())) {
+                changes.moduleDependenciesToAdd.add(dependency);
             }
         }
+        return changes;
+    }
 
-        // remove resolved libraries that are no longer used
-        Set<String> librariesInUse = new HashSet<String>();
-        for (ResolvedDependency dependency : externalDependenciesToKeep) {
-            if (dependency instanceof ExternalDependency) {
-                ExternalDependency externalDependency = (ExternalDependency) dependency;
-                String library = IvyIdeaConfigHelper.getCreatedLibraryName(intellijModule, externalDependency.getConfigurationName());
-                librariesInUse.add(library);
+    /**
+     * Applies changes computed by {@link #computeChanges} to the module model; to be called from within a write
+     * action. The shared project libraries should already have the roots the changes add to them.
+     */
+    public void applyChanges(ModuleChanges changes) {
+        changes.moduleDependenciesToAdd.forEach(resolvedDependency -> resolvedDependency.addTo(this));
+        changes.rootsToAdd.forEach(resolvedDependency -> resolvedDependency.addTo(this));
+        for (Map.Entry<String, Map<OrderRootType, List<String>>> entry : changes.rootsToRemove.entrySet()) {
+            for (Map.Entry<OrderRootType, List<String>> urls : entry.getValue().entrySet()) {
+                for (String url : urls.getValue()) {
+                    libraryModels.removeRoot(entry.getKey(), urls.getKey(), url);
+                }
             }
         }
 
+        // remove resolved libraries that are no longer used
         final LibraryTable libraryTable = intellijModule.getModuleLibraryTable();
-        for (Library library : libraryTable.getLibraries()) {
-            final String libraryName = library.getName();
-            if (IvyIdeaConfigHelper.isCreatedLibraryName(libraryName) && !librariesInUse.contains(libraryName)) {
+        for (String libraryName : changes.librariesToRemove) {
+            final Library library = libraryTable.getLibraryByName(libraryName);
+            if (library != null) {
                 libraryTable.removeLibrary(library);
             }
         }
 
-        Set<String> internalModulesToKeep = new HashSet<>(internalDependenciesToKeep.size());
-        for (ResolvedDependency resolvedDependency : internalDependenciesToKeep) {
-            String moduleName = ((InternalDependency) resolvedDependency).getModuleName();
-            internalModulesToKeep.add(moduleName);
+        ProjectLibraries.removeLibraryEntries(intellijModule, changes.projectLibrariesToRemove);
+        if (sharedLibraries != null) {
+            sharedLibraries.addLibraryEntries(intellijModule, changes.projectLibrariesToAdd);
         }
-        for (Module moduleDependency : intellijModule.getModuleDependencies()) {
-            if (!internalModulesToKeep.contains(moduleDependency.getName())) {
-                ModuleOrderEntry moduleOrderEntry = intellijModule.findModuleOrderEntry(moduleDependency);
-                if (moduleOrderEntry != null) {
-                    intellijModule.removeOrderEntry(moduleOrderEntry);
-                }
+
+        for (Module moduleDependency : changes.moduleDependenciesToRemove) {
+            ModuleOrderEntry moduleOrderEntry = intellijModule.findModuleOrderEntry(moduleDependency);
+            if (moduleOrderEntry != null) {
+                intellijModule.removeOrderEntry(moduleOrderEntry);
             }
         }
     }
 
-    private List<String> getDependenciesToRemove(OrderRootType type, Collection<ExternalDependency> resolvedExternalDependencies) {
-        final List<String> intellijDependencies = libraryModels.getIntellijDependencyUrlsForType(type);
-        final List<String> dependenciesToRemove = new ArrayList<>(intellijDependencies); // add all dependencies initially
-        for (String intellijDependency : intellijDependencies) {
-            for (ResolvedDependency resolvedDependency : resolvedExternalDependencies) {
-                ExternalDependency externalDependency = (ExternalDependency) resolvedDependency;
-                if (externalDependency.isSameDependency(intellijDependency)) {
-                    dependenciesToRemove.remove(intellijDependency); // remove existing ones
-                }
-            }
+    public void close() {
+        final ModifiableRootModel changedModel = releaseChangedModel();
+        if (changedModel != null) {
+            changedModel.commit();
         }
-        return dependenciesToRemove;
+    }
+
+    /**
+     * Applies the library changes to the module model and hands it over instead of committing it, so that it can be
+     * committed together with the models of other modules; see {@link ModuleDependencyBatch}.
+     *
+     * @return the module model, null if nothing changed (in which case it has been disposed)
+     */
+    ModifiableRootModel releaseChangedModel() {
+        libraryModels.close();
+        if (intellijModule.isChanged()) {
+            return intellijModule;
+        }
+        intellijModule.dispose();
+        return null;
+    }
+
+    public String getModuleName() {
+        return intellijModule.getModule().getName();
+    }
+
+    public void addModuleDependency(Module module) {
+        intellijModule.addModuleOrderEntry(module);
+    }
+
+    public void addExternalDependency(ExternalDependency externalDependency) {
+        libraryModels.addRoot(externalDependency);
     }
 
 }
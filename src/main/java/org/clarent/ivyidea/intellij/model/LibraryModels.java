@@ -16,6 +16,7 @@
 
 package org.clarent.ivyidea.intellij.model;
 
+import com.intellij.openapi.module.Module;
 import com.intellij.openapi.roots.ModifiableRootModel;
 import com.intellij.openapi.roots.OrderRootType;
 import com.intellij.openapi.roots.libraries.Library;
@@ -25,8 +26,12 @@ import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
 import org.clarent.ivyidea.resolve.dependency.ExternalDependency;
 
 import java.io.Closeable;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
@@ -46,13 +51,32 @@ class LibraryModels implements Closeable {
         this.intellijModule = intellijModule;
     }
 
-    public Library.ModifiableModel getForExternalDependency(final ExternalDependency externalDependency) {
-        String resolvedConfiguration = externalDependency.getConfigurationName();
-        return getForConfiguration(isBlank(resolvedConfiguration) ? "default" : resolvedConfiguration);
+    /**
+     * @return the name of the library of the module itself that the dependency belongs in
+     */
+    static String getLibraryName(Module module, ExternalDependency externalDependency) {
+        final String resolvedConfiguration = externalDependency.getConfigurationName();
+        return IvyIdeaConfigHelper.getCreatedLibraryName(module, isBlank(resolvedConfiguration) ? "default" : resolvedConfiguration);
     }
 
-    private Library.ModifiableModel getForConfiguration(String ivyConfiguration) {
-        final String libraryName = IvyIdeaConfigHelper.getCreatedLibraryName(intellijModule, ivyConfiguration);
+    /**
+     * @param existingUrls the roots of the given type a library currently has
+     * @param wantedDependencies the dependencies of that type the library should have
+     * @return the wanted dependencies whose files don't match any of the existing roots, without duplicates
+     */
+    static List<ExternalDependency> getDependenciesToAdd(LibraryRootDiff rootDiff, String[] existingUrls, Collection<ExternalDependency> wantedDependencies) {
+        final Map<File, ExternalDependency> dependenciesByFile = new HashMap<>();
+        for (ExternalDependency wantedDependency : wantedDependencies) {
+            dependenciesByFile.putIfAbsent(wantedDependency.getLocalFile(), wantedDependency);
+        }
+        final List<ExternalDependency> result = new ArrayList<>();
+        for (File file : rootDiff.getFilesToAdd(asList(existingUrls), dependenciesByFile.keySet())) {
+            result.add(dependenciesByFile.get(file));
+        }
+        return result;
+    }
+
+    private Library.ModifiableModel getForLibrary(String libraryName) {
         return libraryModels.computeIfAbsent(libraryName, _libraryName -> getIvyIdeaLibrary(intellijModule, libraryName).getModifiableModel());
     }
 
@@ -66,20 +90,14 @@ class LibraryModels implements Closeable {
         return library;
     }
 
-    public void removeDependency(OrderRootType type, String dependencyUrl) {
-        LOGGER.info("Removing no longer needed dependency of type " + type + ": " + dependencyUrl);
-        for (Library.ModifiableModel libraryModel : libraryModels.values()) {
-            libraryModel.removeRoot(dependencyUrl, type);
-        }
+    public void addRoot(ExternalDependency externalDependency) {
+        final Library.ModifiableModel libraryModel = getForLibrary(getLibraryName(intellijModule.getModule(), externalDependency));
+        libraryModel.addRoot(externalDependency.getUrlForLibraryRoot(), externalDependency.getType());
     }
 
-    public List<String> getIntellijDependencyUrlsForType(OrderRootType type) {
-        final List<String> intellijDependencies = new ArrayList<String>();
-        for (final Library.ModifiableModel libraryModel : libraryModels.values()) {
-            final String[] libraryModelUrls = libraryModel.getUrls(type);
-            intellijDependencies.addAll(asList(libraryModelUrls));
-        }
-        return intellijDependencies;
+    public void removeRoot(String libraryName, OrderRootType type, String dependencyUrl) {
+        LOGGER.info("Removing no longer needed dependency of type " + type + ": " + dependencyUrl);
+        getForLibrary(libraryName).removeRoot(dependencyUrl, type);
     }
 
     public void close() {
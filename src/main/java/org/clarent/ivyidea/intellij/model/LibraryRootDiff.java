@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij.model;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Compares library roots by a normalized key, so that the roots of a library can be matched against the resolved
+ * files with hash lookups instead of comparing every root to every file.
+ *
+ * The key of a root url (jar:///path/lib.jar!/ or file:///path/classes) and of a file is its path with forward slashes,
+ * without . and .. segments or trailing slashes, and in lower case on case insensitive file systems.
+ */
+public class LibraryRootDiff {
+
+    private final boolean caseSensitive;
+
+    public LibraryRootDiff(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    public String getKey(String url) {
+        String path = url;
+        final int protocolEnd = path.indexOf("://");
+        if (protocolEnd >= 0) {
+            path = path.substring(protocolEnd + 3);
+        }
+        if (path.endsWith("!/")) {
+            path = path.substring(0, path.length() - 2);
+        }
+        return normalize(path);
+    }
+
+    public String getKey(File file) {
+        return normalize(file.getAbsolutePath());
+    }
+
+    /**
+     * @return the keys of the given root urls
+     */
+    public Set<String> getKeys(Collection<String> urls) {
+        final Set<String> result = new HashSet<>();
+        for (String url : urls) {
+            result.add(getKey(url));
+        }
+        return result;
+    }
+
+    /**
+     * @param existingUrls the roots a library currently has
+     * @param wantedFiles the files the library should have
+     * @return the existing roots that don't match any of the wanted files
+     */
+    public List<String> getRootsToRemove(Collection<String> existingUrls, Collection<File> wantedFiles) {
+        final Set<String> wantedKeys = new HashSet<>();
+        for (File wantedFile : wantedFiles) {
+            wantedKeys.add(getKey(wantedFile));
+        }
+        final List<String> result = new ArrayList<>();
+        for (String existingUrl : existingUrls) {
+            if (!wantedKeys.contains(getKey(existingUrl))) {
+                result.add(existingUrl);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param existingUrls the roots a library currently has
+     * @param wantedFiles the files the library should have
+     * @return the wanted files that don't match any of the existing roots, without duplicates
+     */
+    public List<File> getFilesToAdd(Collection<String> existingUrls, Collection<File> wantedFiles) {
+        final Set<String> existingKeys = getKeys(existingUrls);
+        final List<File> result = new ArrayList<>();
+        for (File wantedFile : wantedFiles) {
+            if (existingKeys.add(getKey(wantedFile))) {
+                result.add(wantedFile);
+            }
+        }
+        return result;
+    }
+
+    private String normalize(String path) {
+        final String[] segments = path.replace('\\', '/').split("/");
+        final Deque<String> normalized = new ArrayDeque<>(segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            final String segment = segments[i];
+            if (segment.equals(".") || (segment.isEmpty() && i > 0)) {
+                continue;
+            }
+            if (segment.equals("..") && !normalized.isEmpty() && !normalized.peekLast().isEmpty() && !normalized.peekLast().equals("..")) {
+                normalized.removeLast();
+            } else {
+                normalized.addLast(segment);
+            }
+        }
+        final String result = String.join("/", normalized);
+        final String key = result.isEmpty() && path.startsWith("/") ? "/" : result;
+        return caseSensitive ? key : key.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij.model;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.roots.OrderRootType;
+import org.clarent.ivyidea.resolve.dependency.ExternalDependency;
+import org.clarent.ivyidea.resolve.dependency.InternalDependency;
+
+import java.util.*;
+
+/**
+ * The changes that bring the IvyIDEA libraries and the module dependencies of a module in line with the resolved
+ * ones, computed by {@link IntellijModuleWrapper#computeChanges} in a read action and applied later on, in a write
+ * action, by {@link IntellijModuleWrapper#applyChanges(ModuleChanges)}.
+ */
+public class ModuleChanges {
+
+    // roots for the libraries of the module itself, the library follows from the configuration of the dependency
+    final List<ExternalDependency> rootsToAdd = new ArrayList<>();
+    final Map<String, Map<OrderRootType, List<String>>> rootsToRemove = new LinkedHashMap<>();
+    final Set<String> librariesToRemove = new LinkedHashSet<>();
+
+    final List<InternalDependency> moduleDependenciesToAdd = new ArrayList<>();
+    final List<Module> moduleDependenciesToRemove = new ArrayList<>();
+
+    // the shared project libraries the module should refer to or not anymore, and the roots they are missing
+    final Set<String> projectLibrariesToAdd = new LinkedHashSet<>();
+    final Set<String> projectLibrariesToRemove = new LinkedHashSet<>();
+    final Map<String, List<ExternalDependency>> projectLibraryRootsToAdd = new LinkedHashMap<>();
+
+    void addRootsToRemove(String libraryName, OrderRootType type, List<String> urls) {
+        if (!urls.isEmpty()) {
+            rootsToRemove.computeIfAbsent(libraryName, name -> new LinkedHashMap<>()).put(type, urls);
+        }
+    }
+
+    /**
+     * @return true if the module is up to date
+     */
+    public boolean isEmpty() {
+        return rootsToAdd.isEmpty() && rootsToRemove.isEmpty() && librariesToRemove.isEmpty()
+                && moduleDependenciesToAdd.isEmpty() && moduleDependenciesToRemove.isEmpty()
+                && projectLibrariesToAdd.isEmpty() && projectLibrariesToRemove.isEmpty() && projectLibraryRootsToAdd.isEmpty();
+    }
+}
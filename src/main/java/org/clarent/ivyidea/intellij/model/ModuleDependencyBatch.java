@@ -0,0 +1,150 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij.model;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModifiableRootModel;
+import com.intellij.openapi.roots.ex.ProjectRootManagerEx;
+import com.intellij.openapi.roots.impl.ModifiableModelCommitter;
+import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
+import org.clarent.ivyidea.ivy.ResolveSession;
+import org.clarent.ivyidea.resolve.ResolveTimings;
+import org.clarent.ivyidea.resolve.dependency.ExternalDependency;
+import org.clarent.ivyidea.resolve.dependency.InternalDependency;
+
+import java.util.*;
+
+/**
+ * Collects the resolved dependencies of several modules and applies them in one go, committing all changed module
+ * models together so that IntelliJ only processes a single roots change for the whole batch.
+ *
+ * What has to change for each module is worked out beforehand by {@link #computeChanges()}, which only needs read
+ * access and leaves out the modules that are already up to date; the write action of {@link #apply()} only replays
+ * those changes, and when nothing changed at all no write action is needed.
+ *
+ * The time spent on updating each module model is recorded in the {@link ResolveTimings} of the {@link ResolveSession}; the
+ * commit of all models together is recorded under {@link ResolveTimings#ALL_MODULES}.
+ */
+public class ModuleDependencyBatch {
+
+    private final Project project;
+    private final ResolveTimings timings;
+    private final Map<Module, ModuleDependencies> dependencies = new LinkedHashMap<>();
+    private final Map<Module, ModuleChanges> changes = new LinkedHashMap<>();
+    private boolean shareLibraries;
+
+    public ModuleDependencyBatch(ResolveSession session) {
+        this.project = session.getProject();
+        this.timings = session.getResolveTimings();
+    }
+
+    public void add(Module module, List<ExternalDependency> externalDependencies, List<InternalDependency> internalDependencies) {
+        dependencies.put(module, new ModuleDependencies(externalDependencies, internalDependencies));
+    }
+
+    /**
+     * @return true if there is nothing to change, which is only known after {@link #computeChanges()}
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Compares every module in the batch with its resolved dependencies, each in a read action of its own, and keeps
+     * the changes for the modules that are not up to date; to be called from a background thread.
+     */
+    public void computeChanges() {
+        shareLibraries = IvyIdeaConfigHelper.isUseProjectLibraries(project);
+        final ProjectLibraries projectLibraries = new ProjectLibraries(project);
+        changes.clear();
+        for (Map.Entry<Module, ModuleDependencies> entry : dependencies.entrySet()) {
+            final Module module = entry.getKey();
+            final ModuleChanges moduleChanges = ReadAction.compute(() -> module.isDisposed() ? null
+                    : IntellijModuleWrapper.computeChanges(module, entry.getValue().externalDependencies, entry.getValue().internalDependencies, shareLibraries ? projectLibraries : null));
+            if (moduleChanges != null && !moduleChanges.isEmpty()) {
+                changes.put(module, moduleChanges);
+            }
+        }
+    }
+
+    /**
+     * Applies the changes found by {@link #computeChanges()} to all modules in the batch; to be called from within a
+     * write action, soon after computing them.
+     */
+    public void apply() {
+        ProjectRootManagerEx.getInstanceEx(project).mergeRootsChangesDuring(this::doApply);
+    }
+
+    private void doApply() {
+        long start = ResolveTimings.start();
+        final ProjectLibraries projectLibraries = new ProjectLibraries(project);
+        final Map<String, List<ExternalDependency>> projectLibraryRootsToAdd = new LinkedHashMap<>();
+        for (ModuleChanges moduleChanges : changes.values()) {
+            moduleChanges.projectLibraryRootsToAdd.forEach((libraryName, rootsToAdd) ->
+                    projectLibraryRootsToAdd.computeIfAbsent(libraryName, name -> new ArrayList<>()).addAll(rootsToAdd));
+        }
+        projectLibraries.addRoots(projectLibraryRootsToAdd);
+        timings.add(ResolveTimings.ALL_MODULES, ResolveTimings.Phase.COMMIT, start);
+
+        final List<ModifiableRootModel> changedModels = new ArrayList<>(changes.size());
+        try {
+            for (Map.Entry<Module, ModuleChanges> entry : changes.entrySet()) {
+                final Module module = entry.getKey();
+                if (module.isDisposed()) {
+                    continue;
+                }
+                start = ResolveTimings.start();
+                final IntellijModuleWrapper moduleWrapper = IntellijModuleWrapper.forModule(module, shareLibraries ? projectLibraries : null);
+                try {
+                    moduleWrapper.applyChanges(entry.getValue());
+                } finally {
+                    final ModifiableRootModel changedModel = moduleWrapper.releaseChangedModel();
+                    if (changedModel != null) {
+                        changedModels.add(changedModel);
+                    }
+                    timings.add(module.getName(), ResolveTimings.Phase.COMMIT, start);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            for (ModifiableRootModel changedModel : changedModels) {
+                changedModel.dispose();
+            }
+            throw e;
+        }
+
+        start = ResolveTimings.start();
+        if (!changedModels.isEmpty()) {
+            ModifiableModelCommitter.multiCommit(changedModels.toArray(new ModifiableRootModel[0]), ModuleManager.getInstance(project).getModifiableModel());
+        }
+        projectLibraries.removeUnusedLibraries();
+        timings.add(ResolveTimings.ALL_MODULES, ResolveTimings.Phase.COMMIT, start);
+    }
+
+    private static class ModuleDependencies {
+
+        private final List<ExternalDependency> externalDependencies;
+        private final List<InternalDependency> internalDependencies;
+
+        private ModuleDependencies(List<ExternalDependency> externalDependencies, List<InternalDependency> internalDependencies) {
+            this.externalDependencies = externalDependencies;
+            this.internalDependencies = internalDependencies;
+        }
+    }
+}
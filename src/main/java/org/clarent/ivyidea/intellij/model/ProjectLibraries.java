@@ -0,0 +1,295 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij.model;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.*;
+import com.intellij.openapi.roots.libraries.Library;
+import com.intellij.openapi.roots.libraries.LibraryTable;
+import com.intellij.openapi.roots.libraries.LibraryTablesRegistrar;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.SystemInfo;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.clarent.ivyidea.resolve.dependency.ExternalDependency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Manages the project level libraries used when modules share their resolved libraries: there is one library per
+ * resolved module revision and set of files, which all modules resolving exactly those files for that revision refer
+ * to. Libraries no module refers to anymore are removed by {@link #removeUnusedLibraries()}.
+ *
+ * The name of a library is made of the coordinates of the module revision and a hash of its files, so modules that
+ * resolve other artifacts or configurations of the same revision get a library of their own and never see each
+ * other's files. As the name determines the files, roots are only ever added to a library; when the files of a module
+ * change it refers to another library, and the old one disappears as a whole once no module uses it.
+ */
+public class ProjectLibraries {
+
+    private static final Logger LOGGER = Logger.getLogger(ProjectLibraries.class.getName());
+
+    private static final String LIBRARY_NAME_PREFIX = "IvyIDEA: ";
+    private static final int LIBRARY_HASH_LENGTH = 4;
+
+    private final Project project;
+    private final LibraryTable libraryTable;
+    private static final LibraryRootDiff ROOT_DIFF = new LibraryRootDiff(SystemInfo.isFileSystemCaseSensitive);
+
+    public ProjectLibraries(Project project) {
+        this.project = project;
+        this.libraryTable = LibraryTablesRegistrar.getInstance().getLibraryTable(project);
+    }
+
+    public static boolean isProjectLibraryName(String libraryName) {
+        return libraryName != null && libraryName.startsWith(LIBRARY_NAME_PREFIX);
+    }
+
+    /**
+     * @return the names of the libraries the module needs for the given dependencies; dependencies without a file
+     *         are left out
+     */
+    public static Set<String> getLibraryNames(Collection<ExternalDependency> externalDependencies) {
+        return new LinkedHashSet<>(getDependenciesPerLibrary(externalDependencies).keySet());
+    }
+
+    /**
+     * Groups the given dependencies per module revision and names the library of each group after the revision and
+     * the files in it; dependencies without a file are left out.
+     */
+    private static Map<String, List<ExternalDependency>> getDependenciesPerLibrary(Collection<ExternalDependency> externalDependencies) {
+        final Map<ModuleRevisionId, List<ExternalDependency>> dependenciesPerRevision = new LinkedHashMap<>();
+        for (ExternalDependency externalDependency : externalDependencies) {
+            if (isPresent(externalDependency)) {
+                dependenciesPerRevision.computeIfAbsent(externalDependency.getArtifact().getModuleRevisionId(), mrid -> new ArrayList<>())
+                        .add(externalDependency);
+            }
+        }
+
+        final Map<String, List<ExternalDependency>> result = new LinkedHashMap<>();
+        for (Map.Entry<ModuleRevisionId, List<ExternalDependency>> entry : dependenciesPerRevision.entrySet()) {
+            result.put(getLibraryName(entry.getKey(), entry.getValue()), entry.getValue());
+        }
+        return result;
+    }
+
+    private static String getLibraryName(ModuleRevisionId mrid, List<ExternalDependency> externalDependencies) {
+        final SortedSet<String> rootKeys = new TreeSet<>();
+        for (ExternalDependency externalDependency : externalDependencies) {
+            rootKeys.add(getRootKey(externalDependency));
+        }
+        final MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String rootKey : rootKeys) {
+            messageDigest.update(rootKey.getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+        }
+        final StringBuilder hash = new StringBuilder();
+        final byte[] digest = messageDigest.digest();
+        for (int i = 0; i < LIBRARY_HASH_LENGTH; i++) {
+            hash.append(String.format("%02x", digest[i]));
+        }
+        return LIBRARY_NAME_PREFIX + mrid.getOrganisation() + ":" + mrid.getName() + ":" + mrid.getRevision() + " #" + hash;
+    }
+
+    private static String getRootKey(ExternalDependency externalDependency) {
+        return externalDependency.getType() + ":" + ROOT_DIFF.getKey(externalDependency.getLocalFile());
+    }
+
+    /**
+     * Gives the roots the shared libraries of the given dependencies are missing, including the roots of libraries
+     * that don't exist yet; to be called from within a read action.
+     *
+     * @return the dependencies whose files are missing per library name
+     */
+    public Map<String, List<ExternalDependency>> getMissingRoots(Collection<ExternalDependency> externalDependencies) {
+        final Map<String, Map<OrderRootType, List<ExternalDependency>>> dependenciesPerLibrary = new LinkedHashMap<>();
+        for (Map.Entry<String, List<ExternalDependency>> entry : getDependenciesPerLibrary(externalDependencies).entrySet()) {
+            for (ExternalDependency externalDependency : entry.getValue()) {
+                dependenciesPerLibrary.computeIfAbsent(entry.getKey(), name -> new LinkedHashMap<>())
+                        .computeIfAbsent(externalDependency.getType(), type -> new ArrayList<>())
+                        .add(externalDependency);
+            }
+        }
+
+        final Map<String, List<ExternalDependency>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<OrderRootType, List<ExternalDependency>>> entry : dependenciesPerLibrary.entrySet()) {
+            final Library library = libraryTable.getLibraryByName(entry.getKey());
+            for (Map.Entry<OrderRootType, List<ExternalDependency>> dependencies : entry.getValue().entrySet()) {
+                final String[] urls = library == null ? new String[0] : library.getUrls(dependencies.getKey());
+                final List<ExternalDependency> missingRoots = LibraryModels.getDependenciesToAdd(ROOT_DIFF, urls, dependencies.getValue());
+                if (!missingRoots.isEmpty()) {
+                    result.computeIfAbsent(entry.getKey(), name -> new ArrayList<>()).addAll(missingRoots);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the missing libraries and adds the given roots to them, as found by {@link #getMissingRoots}; to be
+     * called from within a write action. Roots that are given more than once, e.g. because several modules miss
+     * them, are added once.
+     *
+     * @param rootsToAdd the dependencies whose files to add per library name
+     */
+    public void addRoots(Map<String, List<ExternalDependency>> rootsToAdd) {
+        if (rootsToAdd.isEmpty()) {
+            return;
+        }
+        final LibraryTable.ModifiableModel tableModel = libraryTable.getModifiableModel();
+        final List<Library.ModifiableModel> libraryModels = new ArrayList<>();
+        try {
+            for (Map.Entry<String, List<ExternalDependency>> entry : rootsToAdd.entrySet()) {
+                Library library = tableModel.getLibraryByName(entry.getKey());
+                if (library == null) {
+                    LOGGER.info("Creating project library " + entry.getKey());
+                    library = tableModel.createLibrary(entry.getKey());
+                }
+                final Library.ModifiableModel libraryModel = library.getModifiableModel();
+                libraryModels.add(libraryModel);
+                final Set<String> addedKeys = new HashSet<>();
+                for (ExternalDependency externalDependency : entry.getValue()) {
+                    if (addedKeys.add(getRootKey(externalDependency))) {
+                        libraryModel.addRoot(externalDependency.getUrlForLibraryRoot(), externalDependency.getType());
+                    }
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            for (Library.ModifiableModel libraryModel : libraryModels) {
+                Disposer.dispose(libraryModel);
+            }
+            Disposer.dispose(tableModel);
+            throw e;
+        }
+
+        for (Library.ModifiableModel libraryModel : libraryModels) {
+            if (libraryModel.isChanged()) {
+                libraryModel.commit();
+            } else {
+                Disposer.dispose(libraryModel);
+            }
+        }
+        if (tableModel.isChanged()) {
+            tableModel.commit();
+        } else {
+            Disposer.dispose(tableModel);
+        }
+    }
+
+    /**
+     * Makes the module refer to the shared libraries with the given names; libraries that don't exist are left out.
+     */
+    public void addLibraryEntries(ModifiableRootModel intellijModule, Set<String> libraryNames) {
+        for (String libraryName : libraryNames) {
+            final Library library = libraryTable.getLibraryByName(libraryName);
+            if (library != null) {
+                intellijModule.addLibraryEntry(library);
+            }
+        }
+    }
+
+    /**
+     * Removes the references to the shared libraries with the given names from the module.
+     */
+    public static void removeLibraryEntries(ModifiableRootModel intellijModule, Set<String> libraryNames) {
+        if (libraryNames.isEmpty()) {
+            return;
+        }
+        for (OrderEntry orderEntry : intellijModule.getOrderEntries()) {
+            if (libraryNames.contains(getProjectLibraryName(orderEntry))) {
+                intellijModule.removeOrderEntry(orderEntry);
+            }
+        }
+    }
+
+    /**
+     * Removes the references to all shared libraries from the module.
+     */
+    public static void removeLibraryEntries(ModifiableRootModel intellijModule) {
+        for (OrderEntry orderEntry : intellijModule.getOrderEntries()) {
+            if (getProjectLibraryName(orderEntry) != null) {
+                intellijModule.removeOrderEntry(orderEntry);
+            }
+        }
+    }
+
+    /**
+     * Removes the shared libraries that no module refers to anymore; to be called from within a write action, after
+     * the module models have been committed.
+     */
+    public void removeUnusedLibraries() {
+        final List<Library> sharedLibraries = new ArrayList<>();
+        for (Library library : libraryTable.getLibraries()) {
+            if (isProjectLibraryName(library.getName())) {
+                sharedLibraries.add(library);
+            }
+        }
+        if (sharedLibraries.isEmpty()) {
+            return;
+        }
+
+        final Set<String> usedLibraries = new HashSet<>();
+        for (Module module : ModuleManager.getInstance(project).getModules()) {
+            for (OrderEntry orderEntry : ModuleRootManager.getInstance(module).getOrderEntries()) {
+                final String libraryName = getProjectLibraryName(orderEntry);
+                if (libraryName != null) {
+                    usedLibraries.add(libraryName);
+                }
+            }
+        }
+
+        final LibraryTable.ModifiableModel tableModel = libraryTable.getModifiableModel();
+        for (Library library : sharedLibraries) {
+            if (!usedLibraries.contains(library.getName())) {
+                LOGGER.info("Removing no longer used project library " + library.getName());
+                tableModel.removeLibrary(library);
+            }
+        }
+        if (tableModel.isChanged()) {
+            tableModel.commit();
+        } else {
+            Disposer.dispose(tableModel);
+        }
+    }
+
+    /**
+     * @return the name of the shared library the order entry refers to, null if it doesn't refer to one
+     */
+    public static String getProjectLibraryName(OrderEntry orderEntry) {
+        if (orderEntry instanceof LibraryOrderEntry) {
+            final LibraryOrderEntry libraryOrderEntry = (LibraryOrderEntry) orderEntry;
+            if (LibraryTablesRegistrar.PROJECT_LEVEL.equals(libraryOrderEntry.getLibraryLevel()) && isProjectLibraryName(libraryOrderEntry.getLibraryName())) {
+                return libraryOrderEntry.getLibraryName();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isPresent(ExternalDependency externalDependency) {
+        return externalDependency.getLocalFile() != null && !externalDependency.isMissing();
+    }
+}
@@ -38,7 +38,7 @@ public abstract class IvyIdeaResolveBackgroundTask extends IvyIdeaBackgroundTask
 
     private IvyIdeaException exception;
     private final Project project;
-    private ProgressMonitorThread monitorThread;
+    private IvyProgressMonitor progressMonitor;
 
     /**
      * Implementations should perform the resolve process inside this method.
@@ -55,14 +55,17 @@ public abstract class IvyIdeaResolveBackgroundTask extends IvyIdeaBackgroundTask
         this.project = project;
     }
 
-    protected ProgressMonitorThread getProgressMonitorThread() {
-        return monitorThread;
+    protected IvyIdeaResolveBackgroundTask(Project project, String title) {
+        super(project, title);
+        this.project = project;
+    }
+
+    protected IvyProgressMonitor getProgressMonitor() {
+        return progressMonitor;
     }
 
     public final void run(@NotNull final ProgressIndicator indicator) {
-        final Thread resolveThread = Thread.currentThread();
-        monitorThread = new ProgressMonitorThread(indicator, resolveThread);
-        monitorThread.start();
+        progressMonitor = new IvyProgressMonitor(indicator);
 
         try {
             // Intercept URL requests and force the intellij proxy to be used
@@ -80,6 +83,8 @@ public abstract class IvyIdeaResolveBackgroundTask extends IvyIdeaBackgroundTask
             if (!indicator.isCanceled()) {
                 throw e;
             }
+        } finally {
+            progressMonitor.dispose();
         }
     }
 
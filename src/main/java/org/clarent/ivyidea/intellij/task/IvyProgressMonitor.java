@@ -0,0 +1,168 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij.task;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.event.IvyEvent;
+import org.apache.ivy.core.event.IvyListener;
+import org.apache.ivy.core.event.download.StartArtifactDownloadEvent;
+import org.apache.ivy.core.event.resolve.EndResolveDependencyEvent;
+import org.apache.ivy.core.event.resolve.StartResolveDependencyEvent;
+import org.apache.ivy.plugins.repository.TransferEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Follows the events of the Ivy engines used by a task to report its progress, and stops the task's Ivy operations
+ * when the user cancels it. Every thread that runs an Ivy operation registers itself together with the engine it is
+ * using. Events are only used for reporting: Ivy turns exceptions thrown by a listener into problems of the
+ * dependencies being resolved, and a thread that waits for a repository fires no events at all. Instead, a watchdog
+ * checks the indicator and interrupts the registered threads through their engines, see {@link Ivy#interrupt(Thread)},
+ * which makes them stop at the engine's next {@link Ivy#checkInterrupted()} and stops those that don't end in time.
+ */
+public class IvyProgressMonitor implements IvyListener {
+
+    private static final long CANCEL_CHECK_INTERVAL_MS = 100;
+
+    private final ProgressIndicator indicator;
+    private final Map<Thread, Ivy> resolveThreads = new ConcurrentHashMap<>();
+    private final Set<Ivy> engines = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean interrupting = new AtomicBoolean();
+    private final ScheduledFuture<?> watchdog;
+
+    private final AtomicInteger startedDependencies = new AtomicInteger();
+    private final AtomicInteger resolvedDependencies = new AtomicInteger();
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private volatile boolean dependencyFraction;
+    private double fraction;
+
+    public IvyProgressMonitor(ProgressIndicator indicator) {
+        this.indicator = indicator;
+        this.watchdog = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(
+                this::checkCanceled, CANCEL_CHECK_INTERVAL_MS, CANCEL_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers the current thread as operating on the given Ivy engine. Only threads that end once they are done
+     * with Ivy, e.g. the workers of an executor that has been shut down, may register: when the task is cancelled
+     * they are interrupted through their engine, which stops them if they don't end in time.
+     *
+     * @param ivy the engine the current thread is about to use
+     * @throws ProcessCanceledException if the task has already been cancelled
+     */
+    public void register(Ivy ivy) {
+        if (engines.add(ivy)) {
+            ivy.getEventManager().addIvyListener(this);
+        }
+        resolveThreads.put(Thread.currentThread(), ivy);
+        if (indicator.isCanceled()) {
+            unregister();
+            throw new ProcessCanceledException();
+        }
+    }
+
+    public void unregister() {
+        resolveThreads.remove(Thread.currentThread());
+    }
+
+    /**
+     * Lets the number of resolved dependencies drive the progress fraction, for tasks that can't tell how far they
+     * have got themselves. As the dependencies are only discovered while resolving, the fraction never goes back.
+     */
+    public void useDependencyFraction() {
+        indicator.setIndeterminate(false);
+        dependencyFraction = true;
+    }
+
+    /**
+     * Stops listening to the engines and watching the indicator; to be called when the task is done.
+     */
+    public void dispose() {
+        watchdog.cancel(false);
+        for (Ivy ivy : engines) {
+            ivy.getEventManager().removeIvyListener(this);
+        }
+        engines.clear();
+        resolveThreads.clear();
+    }
+
+    public void progress(IvyEvent event) {
+        if (!resolveThreads.containsKey(Thread.currentThread())) {
+            // another task using the same engine
+            return;
+        }
+        if (event instanceof StartResolveDependencyEvent) {
+            startedDependencies.incrementAndGet();
+        } else if (event instanceof EndResolveDependencyEvent) {
+            final int resolved = resolvedDependencies.incrementAndGet();
+            final int started = startedDependencies.get();
+            indicator.setText("Resolved " + resolved + " of " + started + " dependencies" + getTransferredText());
+            if (dependencyFraction) {
+                updateFraction((double) resolved / Math.max(resolved, started));
+            }
+        } else if (event instanceof StartArtifactDownloadEvent) {
+            final StartArtifactDownloadEvent downloadEvent = (StartArtifactDownloadEvent) event;
+            indicator.setText2("Downloading " + downloadEvent.getArtifact().getName() + " (" + downloadEvent.getArtifact().getType() + ") of " + downloadEvent.getArtifact().getModuleRevisionId());
+        } else if (event instanceof TransferEvent) {
+            final TransferEvent transferEvent = (TransferEvent) event;
+            if (transferEvent.getEventType() == TransferEvent.TRANSFER_PROGRESS) {
+                transferredBytes.addAndGet(transferEvent.getLength());
+                indicator.setText("Resolved " + resolvedDependencies.get() + " of " + startedDependencies.get() + " dependencies" + getTransferredText());
+            }
+        }
+    }
+
+    private void checkCanceled() {
+        if (indicator.isCanceled() && interrupting.compareAndSet(false, true)) {
+            // interrupting waits for each thread to end, which doesn't belong on the scheduler's thread
+            AppExecutorUtil.getAppExecutorService().execute(this::interruptThreads);
+        }
+    }
+
+    /**
+     * Interrupts the registered threads one after the other. A thread registering afterwards sees the cancellation
+     * itself, see {@link #register(Ivy)}.
+     */
+    private void interruptThreads() {
+        for (Map.Entry<Thread, Ivy> entry : resolveThreads.entrySet()) {
+            entry.getValue().interrupt(entry.getKey());
+        }
+    }
+
+    private synchronized void updateFraction(double newFraction) {
+        if (newFraction > fraction) {
+            fraction = newFraction;
+            indicator.setFraction(newFraction);
+        }
+    }
+
+    private String getTransferredText() {
+        final long bytes = transferredBytes.get();
+        return bytes == 0 ? "" : ", downloaded " + StringUtil.formatFileSize(bytes);
+    }
+}
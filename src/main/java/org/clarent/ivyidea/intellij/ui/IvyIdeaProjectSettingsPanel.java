@@ -24,6 +24,7 @@ import com.intellij.ui.UserActivityWatcher;
 import org.clarent.ivyidea.config.model.IvyIdeaProjectSettings;
 import org.clarent.ivyidea.config.model.PropertiesSettings;
 import org.clarent.ivyidea.config.ui.orderedfilelist.OrderedFileList;
+import org.clarent.ivyidea.ivy.IvyManager;
 import org.clarent.ivyidea.logging.IvyLogLevel;
 
 import javax.swing.*;
@@ -61,6 +62,12 @@ public class IvyIdeaProjectSettingsPanel {
     private JCheckBox autoAttachSources;
     private JCheckBox autoAttachJavadocs;
     private JCheckBox detectDependenciesOnOtherModules;
+    private JSpinner spnResolveThreadCount;
+    private JSpinner spnDownloadThreadCount;
+    private JSpinner spnMissingArtifactRetention;
+    private JCheckBox chkSkipUnchangedModules;
+    private JCheckBox chkAutoResolve;
+    private JCheckBox chkUseProjectLibraries;
     private JPanel pnlIvyFiles;
     private JPanel pnlArtefactTypes;
     private IvyIdeaProjectSettings internalState;
@@ -116,16 +123,23 @@ public class IvyIdeaProjectSettingsPanel {
         internalState.setAlwaysAttachJavadocs(autoAttachJavadocs.isSelected());
         internalState.setUseCustomIvySettings(useYourOwnIvySettingsRadioButton.isSelected());
         internalState.setDetectDependenciesOnOtherModules(detectDependenciesOnOtherModules.isSelected());
+        internalState.setResolveThreadCount((Integer) spnResolveThreadCount.getValue());
+        internalState.setDownloadThreadCount((Integer) spnDownloadThreadCount.getValue());
+        internalState.setMissingArtifactRetentionHours((Integer) spnMissingArtifactRetention.getValue());
+        internalState.setSkipUnchangedModules(chkSkipUnchangedModules.isSelected());
+        internalState.setAutoResolveOnIvyFileChange(chkAutoResolve.isSelected());
         final PropertiesSettings propertiesSettings = new PropertiesSettings();
         propertiesSettings.setPropertyFiles(getPropertiesFiles());
         internalState.setPropertiesSettings(propertiesSettings);
         internalState.setLibraryNameIncludesModule(includeModuleNameCheckBox.isSelected());
         internalState.setLibraryNameIncludesConfiguration(includeConfigurationNameCheckBox.isSelected());
+        internalState.setUseProjectLibraries(chkUseProjectLibraries.isSelected());
         final Object selectedLogLevel = ivyLogLevelComboBox.getSelectedItem();
         internalState.setIvyLogLevelThreshold(selectedLogLevel == null ? IvyLogLevel.None.name() : selectedLogLevel.toString());
         internalState.getArtifactTypeSettings().setTypesForCategory(Classes, txtClassesArtifactTypes.getText());
         internalState.getArtifactTypeSettings().setTypesForCategory(Sources, txtSourcesArtifactTypes.getText());
         internalState.getArtifactTypeSettings().setTypesForCategory(Javadoc, txtJavadocArtifactTypes.getText());
+        IvyManager.getInstance(project).invalidateAll();
     }
 
     public void reset() {
@@ -142,9 +156,15 @@ public class IvyIdeaProjectSettingsPanel {
         autoAttachJavadocs.setSelected(config.isAlwaysAttachJavadocs());
         useYourOwnIvySettingsRadioButton.setSelected(config.isUseCustomIvySettings());
         detectDependenciesOnOtherModules.setSelected(config.isDetectDependenciesOnOtherModules());
+        spnResolveThreadCount.setValue(Math.max(1, config.getResolveThreadCount()));
+        spnDownloadThreadCount.setValue(Math.max(1, config.getDownloadThreadCount()));
+        spnMissingArtifactRetention.setValue(Math.max(0, config.getMissingArtifactRetentionHours()));
+        chkSkipUnchangedModules.setSelected(config.isSkipUnchangedModules());
+        chkAutoResolve.setSelected(config.isAutoResolveOnIvyFileChange());
         setPropertiesFiles(config.getPropertiesSettings().getPropertyFiles());
         includeModuleNameCheckBox.setSelected(config.isLibraryNameIncludesModule());
         includeConfigurationNameCheckBox.setSelected(config.isLibraryNameIncludesConfiguration());
+        chkUseProjectLibraries.setSelected(config.isUseProjectLibraries());
         ivyLogLevelComboBox.setSelectedItem(IvyLogLevel.fromName(config.getIvyLogLevelThreshold()));
         txtSourcesArtifactTypes.setText(config.getArtifactTypeSettings().getTypesStringForCategory(Sources));
         txtClassesArtifactTypes.setText(config.getArtifactTypeSettings().getTypesStringForCategory(Classes));
@@ -159,5 +179,8 @@ public class IvyIdeaProjectSettingsPanel {
         orderedFileList = new OrderedFileList(project);
         pnlPropertiesFiles.add(orderedFileList.getRootPanel(), BorderLayout.CENTER);
         ivyLogLevelComboBox = new ComboBox<>(IvyLogLevel.values());
+        spnResolveThreadCount = new JSpinner(new SpinnerNumberModel(4, 1, 64, 1));
+        spnDownloadThreadCount = new JSpinner(new SpinnerNumberModel(4, 1, 64, 1));
+        spnMissingArtifactRetention = new JSpinner(new SpinnerNumberModel(24, 0, 24 * 365, 1));
     }
 }
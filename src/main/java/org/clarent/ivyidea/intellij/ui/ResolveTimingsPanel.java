@@ -0,0 +1,163 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij.ui;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.ActionToolbar;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.table.JBTable;
+import org.clarent.ivyidea.ivy.IvyManager;
+import org.clarent.ivyidea.resolve.ResolveTimings;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shows how long each phase of the last resolve took for every module, in a table that can be sorted on any column,
+ * and lets the user export the same figures as JSON.
+ */
+public class ResolveTimingsPanel extends JPanel {
+
+    private static final String TITLE = "Export Resolve Timings";
+
+    private final Project project;
+    private final TimingsTableModel tableModel = new TimingsTableModel();
+
+    public ResolveTimingsPanel(Project project) {
+        super(new BorderLayout());
+        this.project = project;
+
+        final JBTable table = new JBTable(tableModel);
+        table.setAutoCreateRowSorter(true);
+
+        final DefaultActionGroup actions = new DefaultActionGroup(new RefreshAction(), new ExportAction());
+        final ActionToolbar toolbar = ActionManager.getInstance().createActionToolbar("IvyIDEA.Timings", actions, false);
+        toolbar.setTargetComponent(this);
+
+        add(toolbar.getComponent(), BorderLayout.WEST);
+        add(ScrollPaneFactory.createScrollPane(table), BorderLayout.CENTER);
+    }
+
+    /**
+     * Shows the timings of the last resolve.
+     */
+    public void refresh() {
+        tableModel.setTimings(IvyManager.getInstance(project).getLastResolveTimings());
+    }
+
+    private class RefreshAction extends DumbAwareAction {
+
+        private RefreshAction() {
+            super("Refresh", "Show the timings of the last resolve", AllIcons.Actions.Refresh);
+        }
+
+        @Override
+        public void actionPerformed(@NotNull AnActionEvent e) {
+            refresh();
+        }
+    }
+
+    private class ExportAction extends DumbAwareAction {
+
+        private ExportAction() {
+            super("Export as JSON...", "Save the timings of the last resolve as a JSON file", AllIcons.ToolbarDecorator.Export);
+        }
+
+        @Override
+        public void actionPerformed(@NotNull AnActionEvent e) {
+            final String json = IvyManager.getInstance(project).getLastResolveTimings().toJson();
+            final FileSaverDescriptor descriptor = new FileSaverDescriptor(TITLE, "Save the timings of the last resolve as JSON", "json");
+            final VirtualFileWrapper target = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, project).save(null, "ivyidea-timings.json");
+            if (target == null) {
+                return;
+            }
+            try {
+                Files.write(target.getFile().toPath(), json.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                Messages.showErrorDialog(project, "Could not write " + target.getFile() + ": " + ex.getMessage(), TITLE);
+            }
+        }
+    }
+
+    private static class TimingsTableModel extends AbstractTableModel {
+
+        private static final ResolveTimings.Phase[] PHASES = ResolveTimings.Phase.values();
+
+        private ResolveTimings timings = new ResolveTimings();
+        private List<String> moduleNames = Collections.emptyList();
+
+        private void setTimings(ResolveTimings timings) {
+            this.timings = timings;
+            this.moduleNames = timings.getModuleNames();
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return moduleNames.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return PHASES.length + 2;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            if (column == 0) {
+                return "Module";
+            }
+            if (column <= PHASES.length) {
+                return PHASES[column - 1].getDisplayName() + " (ms)";
+            }
+            return "Total (ms)";
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? String.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            final String moduleName = moduleNames.get(row);
+            if (column == 0) {
+                return moduleName;
+            }
+            if (column <= PHASES.length) {
+                return timings.getMillis(moduleName, PHASES[column - 1]);
+            }
+            return timings.getTotalMillis(moduleName);
+        }
+    }
+}
@@ -16,55 +16,401 @@
 
 package org.clarent.ivyidea.ivy;
 
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.ModuleListener;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.util.messages.MessageBusConnection;
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
-import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.core.module.id.ModuleId;
 import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
 import org.clarent.ivyidea.exception.IvySettingsFileReadException;
 import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
+import org.clarent.ivyidea.intellij.IvyModuleIndex;
+import org.clarent.ivyidea.resolve.ResolveTimings;
+import org.clarent.ivyidea.util.StringUtils;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 /**
+ * Keeps the configured Ivy engines and parsed module descriptors of a project across resolves.
+ * Modules with the same effective settings (see {@link IvySettingsFingerprint}) share one configured engine; once the
+ * settings turn out to depend on the base dir, every module gets an engine for its own base dir.
+ *
+ * Cached entries are dropped when the ivy files, settings files or properties files they were built from change on
+ * disk, when a module is removed, or when the IvyIDEA configuration is changed through {@link #invalidate(Module)}
+ * or {@link #invalidateAll()}.
+ * Besides that, every resolve starts with {@link #beginResolveSession()}, after which each cached engine is checked
+ * once against all sources its settings were loaded from (see {@link IvySettingsSources}), so changes made outside
+ * the IDE, to files pulled in through &lt;include&gt; or to remote settings are picked up as well.
+ * Modules can be resolved on several threads at once, so the caches are concurrent; invalidation never waits for an
+ * engine that is being configured, as it is triggered from the event dispatch thread.
+ *
  * @author Guy Mahieu
  */
+public class IvyManager implements Disposable {
+
+    private static final Logger LOGGER = Logger.getLogger(IvyManager.class.getName());
 
-public class IvyManager {
+    private final Project project;
+    private final Object configurationLock = new Object();
+    private final Map<Module, CachedFingerprint> settingsFingerprints = new ConcurrentHashMap<>();
+    private final Map<IvySettingsFingerprint, CachedIvy> configuredIvyInstances = new ConcurrentHashMap<>();
+    private final Map<Module, CachedDescriptor> moduleDescriptors = new ConcurrentHashMap<>();
+    private final Set<IvySettingsFingerprint> baseDirDependentSettings = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger resolveSession = new AtomicInteger();
+    private volatile ResolveTimings lastResolveTimings = new ResolveTimings();
 
-    private Map<Module, Ivy> configuredIvyInstances = new HashMap<Module, Ivy>();
-    private Map<Module, ModuleDescriptor> moduleDescriptors = new HashMap<Module, ModuleDescriptor>();
+    public static IvyManager getInstance(Project project) {
+        return project.getService(IvyManager.class);
+    }
+
+    public IvyManager(Project project) {
+        this.project = project;
+
+        final MessageBusConnection connection = project.getMessageBus().connect(this);
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    fileChanged(event.getPath());
+                    if (event instanceof VFileMoveEvent) {
+                        fileChanged(((VFileMoveEvent) event).getOldPath());
+                    } else if (event instanceof VFilePropertyChangeEvent) {
+                        fileChanged(((VFilePropertyChangeEvent) event).getOldPath());
+                    }
+                }
+            }
+        });
+        connection.subscribe(ProjectTopics.MODULES, new ModuleListener() {
+            @Override
+            public void moduleRemoved(@NotNull Project project, @NotNull Module module) {
+                invalidate(module);
+            }
+        });
+    }
+
+    /**
+     * Marks the start of a new resolve. The first time a cached engine or settings fingerprint is used afterwards, it
+     * is checked against the files and urls it was built from and rebuilt if one of them changed.
+     *
+     * @return the session holding the state of the new resolve, to be closed when the resolve is done
+     */
+    @NotNull
+    public ResolveSession beginResolveSession() {
+        resolveSession.incrementAndGet();
+        final ResolveSession session = new ResolveSession(this);
+        lastResolveTimings = session.getResolveTimings();
+        return session;
+    }
+
+    /**
+     * @return the time spent in each phase of the most recently started resolve, per module
+     */
+    @NotNull
+    public ResolveTimings getLastResolveTimings() {
+        return lastResolveTimings;
+    }
+
+    @NotNull
+    public Project getProject() {
+        return project;
+    }
 
     public Ivy getIvy(final Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
-        if (!configuredIvyInstances.containsKey(module)) {
-            final IvySettings configuredIvySettings = IvyIdeaConfigHelper.createConfiguredIvySettings(module);
-            final Ivy ivy = IvyUtil.createConfiguredIvyEngine(module, configuredIvySettings);
+        return getCachedIvy(module).ivy;
+    }
+
+    /**
+     * @param module the module for which to look up the settings sources
+     * @return the files and urls the settings of the engine used for the given module were loaded from
+     */
+    @NotNull
+    public IvySettingsSources getSettingsSources(final Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
+        return getCachedIvy(module).sources;
+    }
+
+    @NotNull
+    private CachedIvy getCachedIvy(final Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
+        IvySettingsFingerprint fingerprint = getSettingsFingerprint(module);
+        final int session = resolveSession.get();
+        CachedIvy cachedIvy = configuredIvyInstances.get(fingerprint);
+        if (cachedIvy != null && cachedIvy.validatedSession != session) {
+            cachedIvy = validate(fingerprint, cachedIvy, session);
+            if (cachedIvy == null) {
+                // the settings may have turned out to depend on the base dir
+                fingerprint = getSettingsFingerprint(module);
+            }
+        }
+        if (cachedIvy == null) {
+            synchronized (configurationLock) {
+                cachedIvy = configuredIvyInstances.get(fingerprint);
+                if (cachedIvy == null) {
+                    final TrackingIvySettings configuredIvySettings = IvyIdeaConfigHelper.createConfiguredIvySettings(module, fingerprint.getSettingsFile(), fingerprint.getProperties());
+                    final Ivy ivy = IvyUtil.createConfiguredIvyEngine(module, configuredIvySettings);
+                    if (fingerprint.getBaseDir() == null && configuredIvySettings.isBaseDirUsed()) {
+                        // the settings were loaded with the base dir of this module, so they are only good for modules
+                        // with the same one
+                        markBaseDirDependent(fingerprint);
+                        fingerprint = fingerprint.withBaseDir(IvyIdeaConfigHelper.getDefaultBaseDir(module));
+                    }
 
-            configuredIvyInstances.put(module, ivy);
+                    final IvySettingsSources sources = configuredIvySettings.getSources();
+                    final List<String> sourcePaths = new ArrayList<>();
+                    sourcePaths.add(fingerprint.getSettingsFile());
+                    for (File file : sources.getFiles()) {
+                        sourcePaths.add(file.getPath());
+                    }
+                    cachedIvy = new CachedIvy(ivy, configuredIvySettings, watchedPaths(sourcePaths), session);
+                    configuredIvyInstances.put(fingerprint, cachedIvy);
+                }
+            }
         }
-        return configuredIvyInstances.get(module);
+        return cachedIvy;
+    }
+
+    @Nullable
+    private CachedIvy validate(IvySettingsFingerprint fingerprint, CachedIvy cachedIvy, int session) {
+        synchronized (cachedIvy) {
+            if (cachedIvy.validatedSession == session) {
+                return cachedIvy;
+            }
+            if (!cachedIvy.sources.isUpToDate()) {
+                LOGGER.info("Ivy settings for " + fingerprint + " changed; dropping the Ivy engine");
+                configuredIvyInstances.remove(fingerprint, cachedIvy);
+                baseDirDependentSettings.remove(fingerprint.withBaseDir(null));
+                dropDescriptorsFor(fingerprint);
+                return null;
+            }
+            if (fingerprint.getBaseDir() == null && cachedIvy.settings.isBaseDirUsed()) {
+                // e.g. an ivy file resolved with the engine used the base dir
+                LOGGER.info("Ivy settings for " + fingerprint + " depend on the base dir; dropping the shared Ivy engine");
+                configuredIvyInstances.remove(fingerprint, cachedIvy);
+                dropDescriptorsFor(fingerprint);
+                markBaseDirDependent(fingerprint);
+                return null;
+            }
+            cachedIvy.validatedSession = session;
+            return cachedIvy;
+        }
+    }
+
+    @NotNull
+    public IvySettingsFingerprint getSettingsFingerprint(Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
+        final int session = resolveSession.get();
+        CachedFingerprint cachedFingerprint = settingsFingerprints.get(module);
+        if (cachedFingerprint == null || cachedFingerprint.session != session) {
+            // cheap to compute, and it picks up properties files that were changed outside the IDE
+            IvySettingsFingerprint fingerprint = IvyIdeaConfigHelper.getIvySettingsFingerprint(module);
+            if (fingerprint.getBaseDir() == null && baseDirDependentSettings.contains(fingerprint)) {
+                fingerprint = fingerprint.withBaseDir(IvyIdeaConfigHelper.getDefaultBaseDir(module));
+            }
+            if (cachedFingerprint != null && !cachedFingerprint.fingerprint.equals(fingerprint)) {
+                moduleDescriptors.remove(module);
+            }
+            final List<String> sources = new ArrayList<>(IvyIdeaConfigHelper.getIvyPropertiesFiles(module));
+            sources.add(fingerprint.getSettingsFile());
+            cachedFingerprint = new CachedFingerprint(fingerprint, watchedPaths(sources), session);
+            settingsFingerprints.put(module, cachedFingerprint);
+        }
+        return cachedFingerprint.fingerprint;
     }
 
     @Nullable
     public ModuleDescriptor getModuleDescriptor(Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
-        if (!moduleDescriptors.containsKey(module)) {
-            final File ivyFile = IvyUtil.getIvyFile(module);
+        final File ivyFile = IvyUtil.getIvyFile(module);
+        final String ivyFilePath = ivyFile == null ? null : toWatchedPath(ivyFile);
+        CachedDescriptor cachedDescriptor = moduleDescriptors.get(module);
+        if (cachedDescriptor == null || !Objects.equals(cachedDescriptor.ivyFilePath, ivyFilePath)) {
+            ModuleDescriptor descriptor = null;
             if (ivyFile != null) {
                 try {
-                    final ModuleDescriptor descriptor = IvyUtil.parseIvyFile(ivyFile, getIvy(module));
-                    moduleDescriptors.put(module, descriptor);
+                    final Ivy ivy = getIvy(module);
+                    final IvySettingsFingerprint fingerprint = getSettingsFingerprint(module);
+                    descriptor = IvyUtil.parseIvyFile(ivyFile, ivy, fingerprint);
                 } catch (RuntimeException e) {
                     // ignore
-                    moduleDescriptors.put(module, null);
                 }
-            } else {
-                moduleDescriptors.put(module, null);
             }
+            cachedDescriptor = new CachedDescriptor(ivyFilePath, descriptor);
+            moduleDescriptors.put(module, cachedDescriptor);
+        }
+
+        return cachedDescriptor.descriptor;
+    }
+
+    /**
+     * Gives the ivy module id of the given module from the {@link IvyModuleIndex}; the ivy file is only parsed when
+     * the index can't tell, e.g. while indexing or when the id uses variables.
+     *
+     * @param module the module for which to look up the id
+     * @return the id of the ivy module, null if the module has no (readable) ivy file
+     */
+    @Nullable
+    public ModuleId getModuleId(Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
+        final IvyModuleInfo moduleInfo = getIndexedModuleInfo(module);
+        if (moduleInfo != null) {
+            return moduleInfo.getModuleId();
+        }
+        final ModuleDescriptor descriptor = getModuleDescriptor(module);
+        return descriptor == null ? null : descriptor.getModuleRevisionId().getModuleId();
+    }
+
+    @Nullable
+    private IvyModuleInfo getIndexedModuleInfo(Module module) {
+        final File ivyFile = IvyUtil.getIvyFile(module);
+        if (ivyFile == null) {
+            return null;
+        }
+        final IvyModuleInfo moduleInfo = IvyModuleIndex.getModuleInfo(project, ivyFile);
+        return moduleInfo != null && moduleInfo.isComplete() ? moduleInfo : null;
+    }
+
+    /**
+     * Forgets everything that was cached for the given module, to be called when its IvyIDEA facet configuration
+     * changes.
+     *
+     * @param module the module for which to drop the cached settings fingerprint and descriptor
+     */
+    public void invalidate(Module module) {
+        settingsFingerprints.remove(module);
+        moduleDescriptors.remove(module);
+    }
+
+    /**
+     * Drops all cached engines and descriptors, to be called when the IvyIDEA project configuration changes.
+     */
+    public void invalidateAll() {
+        LOGGER.info("Dropping all cached Ivy engines and module descriptors for project " + project.getName());
+        for (IvySettingsFingerprint fingerprint : configuredIvyInstances.keySet()) {
+            ModuleDescriptorCache.getInstance().invalidate(fingerprint);
+        }
+        settingsFingerprints.clear();
+        configuredIvyInstances.clear();
+        baseDirDependentSettings.clear();
+        moduleDescriptors.clear();
+    }
+
+    private void fileChanged(@Nullable String path) {
+        if (path == null) {
+            return;
+        }
+        for (Map.Entry<IvySettingsFingerprint, CachedIvy> entry : configuredIvyInstances.entrySet()) {
+            if (entry.getValue().sourcePaths.contains(path)) {
+                LOGGER.info("Ivy settings source " + path + " changed; dropping the Ivy engine for " + entry.getKey());
+                configuredIvyInstances.remove(entry.getKey());
+                baseDirDependentSettings.remove(entry.getKey().withBaseDir(null));
+                dropDescriptorsFor(entry.getKey());
+            }
+        }
+        for (Map.Entry<Module, CachedFingerprint> entry : settingsFingerprints.entrySet()) {
+            if (entry.getValue().sourcePaths.contains(path)) {
+                LOGGER.info("Ivy properties source " + path + " changed; recomputing the settings of module " + entry.getKey().getName());
+                settingsFingerprints.remove(entry.getKey());
+                configuredIvyInstances.remove(entry.getValue().fingerprint);
+                ModuleDescriptorCache.getInstance().invalidate(entry.getValue().fingerprint);
+                moduleDescriptors.remove(entry.getKey());
+            }
+        }
+        for (Map.Entry<Module, CachedDescriptor> entry : moduleDescriptors.entrySet()) {
+            if (path.equals(entry.getValue().ivyFilePath)) {
+                LOGGER.info("Ivy file " + path + " changed; dropping the cached descriptor of module " + entry.getKey().getName());
+                moduleDescriptors.remove(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Makes the modules using the given settings, which turned out to depend on the base dir, get an engine of their
+     * own from now on.
+     */
+    private void markBaseDirDependent(IvySettingsFingerprint fingerprint) {
+        baseDirDependentSettings.add(fingerprint);
+        settingsFingerprints.values().removeIf(cachedFingerprint -> cachedFingerprint.fingerprint.equals(fingerprint));
+    }
+
+    private void dropDescriptorsFor(IvySettingsFingerprint fingerprint) {
+        // descriptors parsed with the old settings may no longer be correct
+        ModuleDescriptorCache.getInstance().invalidate(fingerprint);
+        for (Map.Entry<Module, CachedFingerprint> moduleEntry : settingsFingerprints.entrySet()) {
+            if (moduleEntry.getValue().fingerprint.equals(fingerprint)) {
+                moduleDescriptors.remove(moduleEntry.getKey());
+            }
+        }
+    }
+
+    @NotNull
+    private static Set<String> watchedPaths(Collection<String> filesOrUrls) {
+        final Set<String> result = new HashSet<>();
+        for (String fileOrUrl : filesOrUrls) {
+            if (StringUtils.isBlank(fileOrUrl) || fileOrUrl.startsWith("http://") || fileOrUrl.startsWith("https://")) {
+                continue;
+            }
+            final String path = fileOrUrl.startsWith("file://") ? VfsUtilCore.urlToPath(fileOrUrl) : fileOrUrl;
+            result.add(toWatchedPath(new File(path)));
         }
+        return result;
+    }
+
+    @NotNull
+    private static String toWatchedPath(@NotNull File file) {
+        return FileUtil.toSystemIndependentName(file.getAbsolutePath());
+    }
+
+    public void dispose() {
+        invalidateAll();
+    }
 
-        return moduleDescriptors.get(module);
+    private static class CachedFingerprint {
+        private final IvySettingsFingerprint fingerprint;
+        private final Set<String> sourcePaths;
+        private final int session;
+
+        CachedFingerprint(IvySettingsFingerprint fingerprint, Set<String> sourcePaths, int session) {
+            this.fingerprint = fingerprint;
+            this.sourcePaths = sourcePaths;
+            this.session = session;
+        }
+    }
+
+    private static class CachedIvy {
+        private final Ivy ivy;
+        private final TrackingIvySettings settings;
+        private final IvySettingsSources sources;
+        private final Set<String> sourcePaths;
+        private volatile int validatedSession;
+
+        CachedIvy(Ivy ivy, TrackingIvySettings settings, Set<String> sourcePaths, int validatedSession) {
+            this.ivy = ivy;
+            this.settings = settings;
+            this.sources = settings.getSources();
+            this.sourcePaths = sourcePaths;
+            this.validatedSession = validatedSession;
+        }
+    }
+
+    private static class CachedDescriptor {
+        private final String ivyFilePath;
+        private final ModuleDescriptor descriptor;
+
+        CachedDescriptor(@Nullable String ivyFilePath, @Nullable ModuleDescriptor descriptor) {
+            this.ivyFilePath = ivyFilePath;
+            this.descriptor = descriptor;
+        }
     }
 }
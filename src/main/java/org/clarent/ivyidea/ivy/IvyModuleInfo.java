@@ -0,0 +1,261 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import org.apache.ivy.core.module.id.ModuleId;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The module id, revision, configurations and dependencies of an ivy file as written in it. It is read without Ivy,
+ * so without the settings, which makes it cheap enough to keep in an index, but ids using variables or inherited from
+ * a parent descriptor are not known; see {@link #isComplete()}. Configurations and dependencies coming from included
+ * files or a parent descriptor are left out.
+ */
+public final class IvyModuleInfo {
+
+    private static final String VARIABLE_START = "${";
+
+    private final String organisation;
+    private final String module;
+    private final String revision;
+    private final boolean extendsParent;
+    private final List<String> configurations;
+    private final List<ModuleId> dependencies;
+
+    public IvyModuleInfo(@Nullable String organisation, @Nullable String module, @Nullable String revision, boolean extendsParent,
+                         @NotNull List<String> configurations, @NotNull List<ModuleId> dependencies) {
+        this.organisation = organisation;
+        this.module = module;
+        this.revision = revision;
+        this.extendsParent = extendsParent;
+        this.configurations = Collections.unmodifiableList(new ArrayList<>(configurations));
+        this.dependencies = Collections.unmodifiableList(new ArrayList<>(dependencies));
+    }
+
+    /**
+     * Reads the given ivy file content.
+     *
+     * @return the info of the ivy file, null if the content is not an ivy file
+     */
+    @Nullable
+    public static IvyModuleInfo read(@NotNull InputStream content) {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            final XMLStreamReader reader = factory.createXMLStreamReader(content);
+            try {
+                reader.nextTag();
+                if (!"ivy-module".equals(reader.getLocalName())) {
+                    return null;
+                }
+                return read(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            return null;
+        }
+    }
+
+    private static IvyModuleInfo read(XMLStreamReader reader) throws XMLStreamException {
+        String organisation = null;
+        String module = null;
+        String revision = null;
+        boolean extendsParent = false;
+        final List<String> configurations = new ArrayList<>();
+        final List<String[]> dependencyNames = new ArrayList<>();
+        int depth = 0;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                if (depth == 0 && "info".equals(reader.getLocalName())) {
+                    organisation = reader.getAttributeValue(null, "organisation");
+                    module = reader.getAttributeValue(null, "module");
+                    revision = reader.getAttributeValue(null, "revision");
+                    extendsParent = extendsParent(reader);
+                    continue;
+                }
+                if (depth == 0 && "configurations".equals(reader.getLocalName())) {
+                    readChildren(reader, "conf", conf -> configurations.add(conf.getAttributeValue(null, "name")));
+                    continue;
+                }
+                if (depth == 0 && "dependencies".equals(reader.getLocalName())) {
+                    readChildren(reader, "dependency", dependency -> dependencyNames.add(new String[]{
+                            dependency.getAttributeValue(null, "org"), dependency.getAttributeValue(null, "name")}));
+                    continue;
+                }
+                depth++;
+            } else if (event == XMLStreamReader.END_ELEMENT) {
+                if (depth == 0) {
+                    break; // the end of ivy-module
+                }
+                depth--;
+            }
+        }
+
+        configurations.removeIf(Objects::isNull);
+        final List<ModuleId> dependencies = new ArrayList<>();
+        for (String[] dependencyName : dependencyNames) {
+            // a dependency without an organisation is one of the module's own organisation
+            final String dependencyOrganisation = dependencyName[0] == null ? organisation : dependencyName[0];
+            if (dependencyOrganisation != null && dependencyName[1] != null) {
+                dependencies.add(ModuleId.newInstance(dependencyOrganisation, dependencyName[1]));
+            }
+        }
+        return new IvyModuleInfo(organisation, module, revision, extendsParent, configurations, dependencies);
+    }
+
+    /**
+     * Hands the child elements with the given name of the element the reader is at to the handler, and moves the
+     * reader to the end of that element.
+     */
+    private static void readChildren(XMLStreamReader reader, String childName, Consumer<XMLStreamReader> handler) throws XMLStreamException {
+        int depth = 0;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                if (depth == 0 && childName.equals(reader.getLocalName())) {
+                    handler.accept(reader);
+                }
+                depth++;
+            } else if (event == XMLStreamReader.END_ELEMENT) {
+                if (depth == 0) {
+                    return;
+                }
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * @return whether the info element the reader is at has an extends element
+     */
+    private static boolean extendsParent(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                if (depth == 0 && "extends".equals(reader.getLocalName())) {
+                    return true;
+                }
+                depth++;
+            } else if (event == XMLStreamReader.END_ELEMENT) {
+                if (depth == 0) {
+                    return false; // the end of info
+                }
+                depth--;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    public String getOrganisation() {
+        return organisation;
+    }
+
+    @Nullable
+    public String getModule() {
+        return module;
+    }
+
+    @Nullable
+    public String getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return the names of the configurations declared in the file itself
+     */
+    @NotNull
+    public List<String> getConfigurations() {
+        return configurations;
+    }
+
+    /**
+     * @return the ids of the modules the file itself declares dependencies on; dependencies whose organisation isn't
+     *         known are left out
+     */
+    @NotNull
+    public List<ModuleId> getDependencies() {
+        return dependencies;
+    }
+
+    public boolean isExtendsParent() {
+        return extendsParent;
+    }
+
+    /**
+     * @return whether the module id is the one Ivy would find, i.e. it doesn't use variables and the file doesn't
+     *         extend a parent descriptor
+     */
+    public boolean isComplete() {
+        return !extendsParent && organisation != null && module != null && !usesVariables(organisation) && !usesVariables(module);
+    }
+
+    /**
+     * @return the id of the module, null if the file doesn't give one
+     */
+    @Nullable
+    public ModuleId getModuleId() {
+        return organisation == null || module == null ? null : ModuleId.newInstance(organisation, module);
+    }
+
+    private static boolean usesVariables(String value) {
+        return value.contains(VARIABLE_START);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final IvyModuleInfo that = (IvyModuleInfo) o;
+        return extendsParent == that.extendsParent
+                && Objects.equals(organisation, that.organisation)
+                && Objects.equals(module, that.module)
+                && Objects.equals(revision, that.revision)
+                && configurations.equals(that.configurations)
+                && dependencies.equals(that.dependencies);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(organisation, module, revision, extendsParent, configurations, dependencies);
+    }
+
+    @Override
+    public String toString() {
+        return "IvyModuleInfo{" + organisation + "#" + module + ";" + revision + (extendsParent ? ", extends a parent" : "")
+                + ", configurations=" + configurations + ", dependencies=" + dependencies + "}";
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Identifies the effective Ivy settings of a module: the settings file, the merged properties and the base dir.
+ * Modules with an equal fingerprint end up with identically configured settings and can share one Ivy engine.
+ *
+ * Every module has its own default base dir, so it is only part of the fingerprint when the settings refer to it,
+ * see {@link #forModule}.
+ */
+public final class IvySettingsFingerprint {
+
+    private static final String[] BASE_DIR_VARIABLES = {"${basedir}", "${ivy.basedir}"};
+
+    private final String settingsFile;
+    private final Map<String, String> properties;
+    private final File baseDir;
+
+    public IvySettingsFingerprint(@Nullable String settingsFile, @NotNull Properties properties, @Nullable File baseDir) {
+        this.settingsFile = settingsFile;
+        final Map<String, String> sortedProperties = new TreeMap<>();
+        for (String propertyName : properties.stringPropertyNames()) {
+            sortedProperties.put(propertyName, properties.getProperty(propertyName));
+        }
+        this.properties = Collections.unmodifiableMap(sortedProperties);
+        this.baseDir = baseDir == null ? null : baseDir.getAbsoluteFile();
+    }
+
+    /**
+     * Gives the fingerprint of the settings of a module. The base dir is left out when the properties don't refer to
+     * it; whether the settings files do is only known once they are loaded, see
+     * {@link TrackingIvySettings#isBaseDirUsed()}, after which {@link #withBaseDir(File)} gives the right fingerprint.
+     *
+     * @param settingsFile the settings file or url, null for the ivy defaults
+     * @param properties the merged properties
+     * @param moduleBaseDir the default base dir of the module
+     */
+    @NotNull
+    public static IvySettingsFingerprint forModule(@Nullable String settingsFile, @NotNull Properties properties, @Nullable File moduleBaseDir) {
+        for (String propertyName : properties.stringPropertyNames()) {
+            if (usesBaseDir(properties.getProperty(propertyName))) {
+                return new IvySettingsFingerprint(settingsFile, properties, moduleBaseDir);
+            }
+        }
+        return new IvySettingsFingerprint(settingsFile, properties, null);
+    }
+
+    /**
+     * @return whether the given settings value refers to the base dir
+     */
+    static boolean usesBaseDir(@Nullable String value) {
+        if (value == null) {
+            return false;
+        }
+        for (String variable : BASE_DIR_VARIABLES) {
+            if (value.contains(variable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return a fingerprint for the same settings file and properties with the given base dir
+     */
+    @NotNull
+    public IvySettingsFingerprint withBaseDir(@Nullable File baseDir) {
+        return new IvySettingsFingerprint(settingsFile, getProperties(), baseDir);
+    }
+
+    /**
+     * @return the settings file or url, null if the ivy defaults are used
+     */
+    @Nullable
+    public String getSettingsFile() {
+        return settingsFile;
+    }
+
+    /**
+     * @return a new Properties object holding the merged properties
+     */
+    @NotNull
+    public Properties getProperties() {
+        final Properties result = new Properties();
+        result.putAll(properties);
+        return result;
+    }
+
+    /**
+     * @return the base dir, null if the settings don't depend on it
+     */
+    @Nullable
+    public File getBaseDir() {
+        return baseDir;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final IvySettingsFingerprint that = (IvySettingsFingerprint) o;
+        return Objects.equals(settingsFile, that.settingsFile)
+                && properties.equals(that.properties)
+                && Objects.equals(baseDir, that.baseDir);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(settingsFile, properties, baseDir);
+    }
+
+    @Override
+    public String toString() {
+        return "IvySettingsFingerprint{settingsFile=" + settingsFile + ", baseDir=" + baseDir + ", " + properties.size() + " properties}";
+    }
+}
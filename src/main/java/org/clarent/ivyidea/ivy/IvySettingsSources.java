@@ -0,0 +1,320 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Records the files and urls that were read while loading ivy settings, including the ones pulled in through
+ * &lt;include&gt; and &lt;properties&gt;, so that the parsed settings can be reused until one of them changes.
+ *
+ * Files are checked on their modification time and size. Urls are checked with a conditional GET using the ETag and
+ * Last-Modified headers of the version that was loaded; when the server ignores those, the content is compared.
+ * Remote properties files are read through {@link #read(URL)}, so what is recorded is exactly what was loaded; Ivy
+ * parses settings files by their url itself, so those are recorded with a request of their own while Ivy loads them.
+ * All requests go through the {@link Connector}, which in the IDE applies the proxy settings.
+ */
+public class IvySettingsSources {
+
+    private static final Logger LOGGER = Logger.getLogger(IvySettingsSources.class.getName());
+
+    /**
+     * Opens the connections to remote sources.
+     */
+    public interface Connector {
+        Connector DIRECT = url -> (HttpURLConnection) url.openConnection();
+
+        @NotNull
+        HttpURLConnection open(@NotNull URL url) throws IOException;
+    }
+
+    private final Map<String, Source> sources = new LinkedHashMap<>();
+    private final Connector connector;
+
+    public IvySettingsSources() {
+        this(Connector.DIRECT);
+    }
+
+    public IvySettingsSources(@NotNull Connector connector) {
+        this.connector = connector;
+    }
+
+    public synchronized void addFile(@NotNull File file) {
+        final File absoluteFile = file.getAbsoluteFile();
+        final String key = absoluteFile.getPath();
+        if (!sources.containsKey(key)) {
+            sources.put(key, new FileSource(absoluteFile));
+        }
+    }
+
+    public synchronized void addUrl(@NotNull URL url) {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                addFile(new File(url.toURI()));
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                addFile(new File(url.getPath()));
+            }
+        } else if (isRemote(url)) {
+            final String key = url.toExternalForm();
+            if (!sources.containsKey(key)) {
+                final UrlSource source = new UrlSource(url);
+                sources.put(key, source);
+                try {
+                    source.read();
+                } catch (IOException e) {
+                    // Ivy got it, so it will likely be there at the first check, which then records it
+                    LOGGER.info("Could not read " + url + " to remember its version: " + e);
+                }
+            }
+        }
+        // other urls (like the ivy defaults inside the ivy jar) never change
+    }
+
+    /**
+     * Reads the given remote url and records the version that was read.
+     *
+     * @return the content of the url
+     */
+    @NotNull
+    public synchronized byte[] read(@NotNull URL url) throws IOException {
+        final String key = url.toExternalForm();
+        Source source = sources.get(key);
+        if (!(source instanceof UrlSource)) {
+            source = new UrlSource(url);
+            sources.put(key, source);
+        }
+        return ((UrlSource) source).read();
+    }
+
+    /**
+     * @return whether the given url is checked with http requests
+     */
+    public static boolean isRemote(@NotNull URL url) {
+        return "http".equals(url.getProtocol()) || "https".equals(url.getProtocol());
+    }
+
+    /**
+     * @return the local files that were read
+     */
+    @NotNull
+    public synchronized List<File> getFiles() {
+        final List<File> result = new ArrayList<>();
+        for (Source source : sources.values()) {
+            if (source instanceof FileSource) {
+                result.add(((FileSource) source).file);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the remote urls that were read
+     */
+    @NotNull
+    public synchronized List<URL> getUrls() {
+        final List<URL> result = new ArrayList<>();
+        for (Source source : sources.values()) {
+            if (source instanceof UrlSource) {
+                result.add(((UrlSource) source).url);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a description of the recorded version of every source; it differs whenever one of the sources was
+     *         loaded in another version
+     */
+    @NotNull
+    public synchronized String getVersion() {
+        final StringBuilder result = new StringBuilder();
+        for (Source source : sources.values()) {
+            result.append(source.getVersion()).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Checks all recorded sources against their current state.
+     *
+     * @return false if at least one of the sources has changed since it was recorded
+     */
+    public synchronized boolean isUpToDate() {
+        for (Source source : sources.values()) {
+            if (!source.isUpToDate()) {
+                LOGGER.info("Ivy settings source " + source + " has changed");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private interface Source {
+        boolean isUpToDate();
+
+        String getVersion();
+    }
+
+    private static class FileSource implements Source {
+
+        private final File file;
+        private final boolean exists;
+        private final long lastModified;
+        private final long length;
+
+        FileSource(File file) {
+            this.file = file;
+            this.exists = file.exists();
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        public boolean isUpToDate() {
+            return exists == file.exists() && lastModified == file.lastModified() && length == file.length();
+        }
+
+        public String getVersion() {
+            return file.getPath() + '|' + exists + '|' + lastModified + '|' + length;
+        }
+
+        @Override
+        public String toString() {
+            return file.getPath();
+        }
+    }
+
+    private class UrlSource implements Source {
+
+        private final URL url;
+        private String eTag;
+        private String lastModified;
+        private byte[] digest;
+
+        UrlSource(URL url) {
+            this.url = url;
+        }
+
+        byte[] read() throws IOException {
+            final HttpURLConnection connection = openConnection();
+            try {
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Server returned HTTP response code " + connection.getResponseCode() + " for " + url);
+                }
+                return update(connection);
+            } finally {
+                connection.disconnect();
+            }
+        }
+
+        public boolean isUpToDate() {
+            try {
+                final HttpURLConnection connection = openConnection();
+                try {
+                    if (eTag != null) {
+                        connection.setRequestProperty("If-None-Match", eTag);
+                    }
+                    if (lastModified != null) {
+                        connection.setRequestProperty("If-Modified-Since", lastModified);
+                    }
+                    final int responseCode = connection.getResponseCode();
+                    if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                        return true;
+                    }
+                    if (responseCode == HttpURLConnection.HTTP_OK) {
+                        final byte[] previousDigest = digest;
+                        update(connection);
+                        // without a previous version, assume the one Ivy loaded was this one
+                        return previousDigest == null || Arrays.equals(previousDigest, digest);
+                    }
+                    if (responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                        LOGGER.info("Could not check " + url + " for changes (HTTP " + responseCode + "), assuming it did not change");
+                        return true;
+                    }
+                    return false;
+                } finally {
+                    connection.disconnect();
+                }
+            } catch (IOException e) {
+                // keep using what we have rather than failing to load settings that are unreachable right now
+                LOGGER.info("Could not check " + url + " for changes, assuming it did not change: " + e);
+                return true;
+            }
+        }
+
+        public String getVersion() {
+            final StringBuilder result = new StringBuilder(url.toExternalForm()).append('|');
+            if (digest != null) {
+                for (byte b : digest) {
+                    result.append(String.format("%02x", b));
+                }
+            }
+            return result.toString();
+        }
+
+        private HttpURLConnection openConnection() throws IOException {
+            final HttpURLConnection connection = connector.open(url);
+            connection.setUseCaches(false);
+            return connection;
+        }
+
+        private byte[] update(HttpURLConnection connection) throws IOException {
+            final byte[] content;
+            try (InputStream in = connection.getInputStream()) {
+                content = readFully(in);
+            }
+            eTag = connection.getHeaderField("ETag");
+            lastModified = connection.getHeaderField("Last-Modified");
+            digest = digest(content);
+            return content;
+        }
+
+        private byte[] readFully(InputStream in) throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+
+        private byte[] digest(byte[] content) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(content);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return url.toExternalForm();
+        }
+    }
+}
@@ -19,10 +19,15 @@ package org.clarent.ivyidea.ivy;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import org.apache.ivy.Ivy;
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
+import org.apache.ivy.core.cache.RepositoryCacheManager;
 import org.apache.ivy.core.event.EventManager;
 import org.apache.ivy.core.module.descriptor.Configuration;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.lock.LockStrategy;
+import org.apache.ivy.plugins.lock.NoLockStrategy;
 import org.apache.ivy.plugins.parser.ModuleDescriptorParserRegistry;
 import org.apache.ivy.plugins.resolver.BasicResolver;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
@@ -50,6 +55,7 @@ import java.util.logging.Logger;
 public class IvyUtil {
 
     private static final Logger LOGGER = Logger.getLogger(IvyUtil.class.getName());
+    private static final String ARTIFACT_LOCK_STRATEGY = "artifact-lock-nio";
 
     /**
      * Returns the ivy file for the given module.
@@ -78,22 +84,44 @@ public class IvyUtil {
      *
      * @param ivyFile  the ivy file to parse
      * @param ivy the Ivy engine to use, configured with the appropriate settings
+     * @param settingsKey identifies the settings of the given engine, see {@link ModuleDescriptorCache}
      * @return the ModuleDescriptor object representing the ivy file.
      */
-    public static ModuleDescriptor parseIvyFile(@NotNull File ivyFile, @NotNull Ivy ivy) {
-        LOGGER.info("Parsing ivy file " + ivyFile.getAbsolutePath());
-
-        ModuleDescriptor moduleDescriptor;
+    public static ModuleDescriptor parseIvyFile(@NotNull File ivyFile, @NotNull Ivy ivy, @NotNull Object settingsKey) {
         try {
-            ivy.pushContext();
-            moduleDescriptor = ModuleDescriptorParserRegistry.getInstance().parseDescriptor(ivy.getSettings(), ivyFile.toURI().toURL(), false);
+            return getModuleDescriptor(ivyFile, ivy, settingsKey, false);
         } catch (ParseException | IOException e) {
             throw new RuntimeException(e);
-        } finally {
-            ivy.popContext();
         }
+    }
 
-        return moduleDescriptor;
+    /**
+     * Gives the ModuleDescriptor of the given ivyFile from the {@link ModuleDescriptorCache}, parsing it with the
+     * given settings if it isn't cached or has changed. The descriptor is shared, so it must not be modified; like
+     * {@link Ivy#resolve(java.net.URL, org.apache.ivy.core.resolve.ResolveOptions)}, a descriptor without a revision
+     * already gets the working revision when it is parsed, so that it can be resolved as is.
+     *
+     * @param ivyFile  the ivy file to parse
+     * @param ivy the Ivy engine to use, configured with the appropriate settings
+     * @param settingsKey identifies the settings of the given engine
+     * @param validate whether the ivy file should be validated
+     * @return the ModuleDescriptor object representing the ivy file.
+     */
+    @NotNull
+    public static ModuleDescriptor getModuleDescriptor(@NotNull File ivyFile, @NotNull Ivy ivy, @NotNull Object settingsKey, boolean validate) throws ParseException, IOException {
+        return ModuleDescriptorCache.getInstance().get(ivyFile, settingsKey, validate, (file, validateFile) -> {
+            LOGGER.info("Parsing ivy file " + file.getAbsolutePath());
+            ivy.pushContext();
+            try {
+                final ModuleDescriptor descriptor = ModuleDescriptorParserRegistry.getInstance().parseDescriptor(ivy.getSettings(), file.toURI().toURL(), validateFile);
+                if (descriptor.getResolvedModuleRevisionId().getRevision() == null) {
+                    descriptor.setResolvedModuleRevisionId(ModuleRevisionId.newInstance(descriptor.getModuleRevisionId(), Ivy.getWorkingRevision()));
+                }
+                return descriptor;
+            } finally {
+                ivy.popContext();
+            }
+        });
     }
 
     /**
@@ -102,17 +130,18 @@ public class IvyUtil {
      *
      * @param ivyFileName the name of the ivy file to parse
      * @param ivy the Ivy engine to use, configured with the appropriate settings
+     * @param settingsKey identifies the settings of the given engine, see {@link ModuleDescriptorCache}
      * @return a set of configurations, null if anything went wrong parsing the ivy file
      *
      * @throws java.text.ParseException if there was an error parsing the ivy file; if the file
      *          does not exist or is a directory, no exception will be thrown
      */
     @Nullable
-    public static Set<Configuration> loadConfigurations(@NotNull String ivyFileName, @NotNull Ivy ivy) throws ParseException {
+    public static Set<Configuration> loadConfigurations(@NotNull String ivyFileName, @NotNull Ivy ivy, @NotNull Object settingsKey) throws ParseException {
         try {
             final File file = new File(ivyFileName);
             if (file.exists() && !file.isDirectory()) {
-                final ModuleDescriptor md = parseIvyFile(file, ivy);
+                final ModuleDescriptor md = parseIvyFile(file, ivy, settingsKey);
                 Set<Configuration> result = new TreeSet<>((o1, o2) -> o1.getName().compareToIgnoreCase(o2.getName()));
                 result.addAll(Arrays.asList(md.getConfigurations()));
                 return result;
@@ -135,11 +164,28 @@ public class IvyUtil {
         // we should now call the Ivy#postConfigure() method, but it is private :-(
         // so we have to execute the same code ourselves
         postConfigure(ivy);
+        lockCaches(ivy.getSettings());
 
         registerConsoleLogger(ivy, module.getProject());
         return ivy;
     }
 
+    /**
+     * Modules are resolved and artifacts downloaded on several threads into the same caches, which Ivy doesn't guard
+     * by default; caches without a lock strategy of their own get one that locks every artifact while it is written.
+     */
+    private static void lockCaches(IvySettings settings) {
+        final LockStrategy artifactLock = settings.getLockStrategy(ARTIFACT_LOCK_STRATEGY);
+        for (RepositoryCacheManager cacheManager : settings.getRepositoryCacheManagers()) {
+            if (cacheManager instanceof DefaultRepositoryCacheManager) {
+                final DefaultRepositoryCacheManager defaultCacheManager = (DefaultRepositoryCacheManager) cacheManager;
+                if (defaultCacheManager.getLockStrategy() instanceof NoLockStrategy) {
+                    defaultCacheManager.setLockStrategy(artifactLock);
+                }
+            }
+        }
+    }
+
     private static void postConfigure(final Ivy ivy) {
         EventManager eventManager = ivy.getEventManager();
         IvySettings settings = ivy.getSettings();
@@ -156,7 +202,9 @@ public class IvyUtil {
     }
 
     private static void registerConsoleLogger(final Ivy ivy, final Project project) {
-        ivy.getLoggerEngine().pushLogger(
+        // the logger stack of the logger engine is kept per thread, while the engine is shared between modules and
+        // used from several threads; the default logger applies to all of them
+        ivy.getLoggerEngine().setDefaultLogger(
                 new ConsoleViewMessageLogger(
                         project,
                         IntellijUtils.getConsoleView(project)
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import com.intellij.openapi.application.ApplicationManager;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Application wide cache of parsed ivy files, so that an ivy file is parsed once for looking up its module, loading
+ * its configurations and resolving it, and only again when it changes.
+ *
+ * Descriptors are kept per file and per settings key, as the settings take part in parsing; a cached descriptor is
+ * used as long as the size and the modification time of the file haven't changed. The least recently used
+ * descriptors are dropped when there are more than {@link #MAX_ENTRIES} of them, or when the ivy files they were
+ * parsed from add up to more than {@link #MAX_FILE_BYTES}; a parsed descriptor takes a multiple of the size of its
+ * file, so this keeps the memory used in check.
+ *
+ * Only the file itself is checked for changes, so descriptors that are made up of other files as well, i.e. that
+ * extend a parent descriptor or include configurations from another file, are not cached.
+ */
+public class ModuleDescriptorCache {
+
+    static final int MAX_ENTRIES = 5000;
+    static final long MAX_FILE_BYTES = 16 * 1024 * 1024;
+
+    // the include element of the configurations section, which reads configurations from another file
+    private static final Pattern INCLUDE_ELEMENT = Pattern.compile("<include[\\s/>]");
+
+    public interface Parser {
+        ModuleDescriptor parse(File file, boolean validate) throws ParseException, IOException;
+    }
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxFileBytes;
+    private long fileBytes;
+
+    public static ModuleDescriptorCache getInstance() {
+        return ApplicationManager.getApplication().getService(ModuleDescriptorCache.class);
+    }
+
+    public ModuleDescriptorCache() {
+        this(MAX_ENTRIES, MAX_FILE_BYTES);
+    }
+
+    ModuleDescriptorCache(int maxEntries, long maxFileBytes) {
+        this.maxEntries = maxEntries;
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    /**
+     * Returns the descriptor of the given file, parsing it only if it isn't cached or has changed since. A
+     * descriptor that was parsed without validation is parsed again when validation is asked for.
+     *
+     * @param file        the ivy file
+     * @param settingsKey identifies the settings the file is parsed with, see {@link IvySettingsFingerprint}
+     * @param validate    whether the file should be validated
+     * @param parser      parses the file on a cache miss; parsing happens outside the lock
+     */
+    @NotNull
+    public ModuleDescriptor get(File file, Object settingsKey, boolean validate, Parser parser) throws ParseException, IOException {
+        final File canonicalFile = file.getCanonicalFile();
+        final Key key = new Key(canonicalFile.getPath(), settingsKey);
+        final long size = canonicalFile.length();
+        final long lastModified = canonicalFile.lastModified();
+        synchronized (this) {
+            final Entry entry = entries.get(key);
+            if (entry != null && entry.size == size && entry.lastModified == lastModified && (entry.validated || !validate)) {
+                return entry.descriptor;
+            }
+        }
+
+        final ModuleDescriptor descriptor = parser.parse(canonicalFile, validate);
+        final boolean cacheable = isCacheable(canonicalFile, descriptor);
+        synchronized (this) {
+            final Entry previous = cacheable ? entries.put(key, new Entry(descriptor, size, lastModified, validate)) : entries.remove(key);
+            if (previous != null) {
+                fileBytes -= previous.size;
+            }
+            if (cacheable) {
+                fileBytes += size;
+                evict();
+            }
+        }
+        return descriptor;
+    }
+
+    /**
+     * @return whether the descriptor only depends on the given file; the file is only read when the descriptor
+     *         doesn't tell
+     */
+    private static boolean isCacheable(File file, ModuleDescriptor descriptor) throws IOException {
+        if (descriptor.getInheritedDescriptors().length > 0) {
+            return false;
+        }
+        return !INCLUDE_ELEMENT.matcher(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)).find();
+    }
+
+    /**
+     * Drops the descriptors parsed with the given settings, to be called when the settings behind the key changed.
+     */
+    public synchronized void invalidate(Object settingsKey) {
+        final Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Key, Entry> entry = iterator.next();
+            if (Objects.equals(entry.getKey().settingsKey, settingsKey)) {
+                fileBytes -= entry.getValue().size;
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        final Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() > maxEntries || fileBytes > maxFileBytes) && iterator.hasNext()) {
+            fileBytes -= iterator.next().size;
+            iterator.remove();
+        }
+    }
+
+    private static final class Key {
+
+        private final String path;
+        private final Object settingsKey;
+
+        private Key(String path, Object settingsKey) {
+            this.path = path;
+            this.settingsKey = settingsKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return path.equals(that.path) && Objects.equals(settingsKey, that.settingsKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, settingsKey);
+        }
+    }
+
+    private static final class Entry {
+
+        private final ModuleDescriptor descriptor;
+        private final long size;
+        private final long lastModified;
+        private final boolean validated;
+
+        private Entry(ModuleDescriptor descriptor, long size, long lastModified, boolean validated) {
+            this.descriptor = descriptor;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.validated = validated;
+        }
+    }
+}
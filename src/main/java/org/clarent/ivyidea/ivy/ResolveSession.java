@@ -0,0 +1,161 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.clarent.ivyidea.exception.IvySettingsFileReadException;
+import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
+import org.clarent.ivyidea.intellij.IntellijUtils;
+import org.clarent.ivyidea.resolve.ResolveTimings;
+import org.clarent.ivyidea.resolve.ResolverMetrics;
+import org.clarent.ivyidea.util.FileStatCache;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The state of a single resolve task: the files known to exist, the timings, the resolver metrics and the ivy module
+ * ids of the modules in the project. Tasks can run at the same time, e.g. an automatic resolve next to a manual one,
+ * so every task gets a session of its own from {@link IvyManager#beginResolveSession()} and closes it when done.
+ *
+ * Ivy engines are shared between tasks, so the events of an engine are only counted for the session when they are
+ * fired by one of the threads that entered it, see {@link #enter(Ivy)}.
+ */
+public class ResolveSession implements AutoCloseable {
+
+    private final IvyManager ivyManager;
+    private final ExecutorService fileLookupExecutor = FileStatCache.newLookupExecutor();
+    private final FileStatCache fileStatCache = new FileStatCache(fileLookupExecutor);
+    private final ResolveTimings resolveTimings = new ResolveTimings();
+    private final ResolverMetrics resolverMetrics = new ResolverMetrics();
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final Set<Ivy> engines = ConcurrentHashMap.newKeySet();
+    private final ResolverMetricsListener metricsListener = new ResolverMetricsListener(this);
+    private Map<ModuleId, Module> ivyModules;
+
+    ResolveSession(IvyManager ivyManager) {
+        this.ivyManager = ivyManager;
+    }
+
+    @NotNull
+    public IvyManager getIvyManager() {
+        return ivyManager;
+    }
+
+    @NotNull
+    public Project getProject() {
+        return ivyManager.getProject();
+    }
+
+    /**
+     * Gives the engine for the given module; the time it takes, which includes configuring a new engine if needed, is
+     * recorded in the timings of the session.
+     */
+    @NotNull
+    public Ivy getIvy(Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
+        final long start = ResolveTimings.start();
+        try {
+            return ivyManager.getIvy(module);
+        } finally {
+            resolveTimings.add(module.getName(), ResolveTimings.Phase.SETTINGS, start);
+        }
+    }
+
+    /**
+     * Marks the current thread as working for this session with the given engine, until {@link #exit()}.
+     */
+    public void enter(Ivy ivy) {
+        if (engines.add(ivy)) {
+            ivy.getEventManager().addIvyListener(metricsListener);
+        }
+        threads.add(Thread.currentThread());
+    }
+
+    public void exit() {
+        threads.remove(Thread.currentThread());
+    }
+
+    boolean isEntered() {
+        return threads.contains(Thread.currentThread());
+    }
+
+    /**
+     * @return the files known to exist or not since the start of the session
+     */
+    @NotNull
+    public FileStatCache getFileStatCache() {
+        return fileStatCache;
+    }
+
+    /**
+     * @return the time spent in each phase of the session, per module
+     */
+    @NotNull
+    public ResolveTimings getResolveTimings() {
+        return resolveTimings;
+    }
+
+    /**
+     * @return the cache hits, downloads and resolve times of each Ivy resolver during the session
+     */
+    @NotNull
+    public ResolverMetrics getResolverMetrics() {
+        return resolverMetrics;
+    }
+
+    /**
+     * Gives the modules with an IvyIDEA facet by their ivy module id, built once per session and shared by all
+     * modules resolved in it. When modules have the same id, the first one wins.
+     *
+     * @return the IntelliJ modules by ivy module id
+     */
+    @NotNull
+    public synchronized Map<ModuleId, Module> getIvyModules() throws IvySettingsNotFoundException, IvySettingsFileReadException {
+        if (ivyModules == null) {
+            final Map<ModuleId, Module> modules = new HashMap<>();
+            for (Module module : IntellijUtils.getAllModulesWithIvyIdeaFacet(getProject())) {
+                final ModuleId moduleId = ivyManager.getModuleId(module);
+                if (moduleId != null) {
+                    modules.putIfAbsent(moduleId, module);
+                }
+            }
+            ivyModules = Collections.unmodifiableMap(modules);
+        }
+        return ivyModules;
+    }
+
+    /**
+     * Stops listening to the engines used in the session and stops the threads looking up files.
+     */
+    @Override
+    public void close() {
+        fileLookupExecutor.shutdownNow();
+        for (Ivy ivy : engines) {
+            ivy.getEventManager().removeIvyListener(metricsListener);
+        }
+        engines.clear();
+        threads.clear();
+    }
+}
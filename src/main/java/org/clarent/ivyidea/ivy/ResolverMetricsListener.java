@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import org.apache.ivy.core.event.IvyEvent;
+import org.apache.ivy.core.event.IvyListener;
+import org.apache.ivy.core.event.download.EndArtifactDownloadEvent;
+import org.apache.ivy.core.event.download.NeedArtifactEvent;
+import org.apache.ivy.core.event.resolve.EndResolveDependencyEvent;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.report.MetadataArtifactDownloadReport;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.clarent.ivyidea.resolve.ResolverMetrics;
+
+/**
+ * Feeds the events of the Ivy engines used in a {@link ResolveSession} into its {@link ResolverMetrics}; events fired by
+ * threads working for another session are left out.
+ *
+ * Ivy asks for every artifact it needs, but only reports a download when the artifact isn't in the cache yet, so the
+ * cache hits are the artifacts that were asked for without being downloaded.
+ */
+class ResolverMetricsListener implements IvyListener {
+
+    private final ResolveSession session;
+
+    ResolverMetricsListener(ResolveSession session) {
+        this.session = session;
+    }
+
+    public void progress(IvyEvent event) {
+        if (!session.isEntered()) {
+            return;
+        }
+        final ResolverMetrics metrics = session.getResolverMetrics();
+        if (event instanceof EndResolveDependencyEvent) {
+            final EndResolveDependencyEvent resolveEvent = (EndResolveDependencyEvent) event;
+            final ResolvedModuleRevision module = resolveEvent.getModule();
+            if (module == null) {
+                metrics.addDependency(getName(resolveEvent.getResolver()), false, true, 0, resolveEvent.getDuration());
+            } else {
+                final MetadataArtifactDownloadReport report = module.getReport();
+                final boolean searched = report != null && report.isSearched();
+                final long fetchedBytes = report != null && report.isDownloaded() ? report.getSize() : 0;
+                metrics.addDependency(getName(module.getResolver()), true, searched, fetchedBytes, resolveEvent.getDuration());
+            }
+        } else if (event instanceof NeedArtifactEvent) {
+            metrics.addArtifactRequest(getName(((NeedArtifactEvent) event).getResolver()));
+        } else if (event instanceof EndArtifactDownloadEvent) {
+            final EndArtifactDownloadEvent downloadEvent = (EndArtifactDownloadEvent) event;
+            final boolean successful = downloadEvent.getReport().getDownloadStatus() != DownloadStatus.FAILED;
+            metrics.addArtifactFetch(getName(downloadEvent.getResolver()), successful, downloadEvent.getReport().getSize());
+        }
+    }
+
+    private static String getName(DependencyResolver resolver) {
+        return resolver == null ? null : resolver.getName();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import org.apache.ivy.core.settings.IvySettings;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * Ivy settings that remember every settings file, included file and properties file they were loaded from, and
+ * whether they depend on the base dir.
+ */
+public class TrackingIvySettings extends IvySettings {
+
+    private final IvySettingsSources sources;
+    private volatile boolean baseDirUsed;
+
+    public TrackingIvySettings() {
+        this(IvySettingsSources.Connector.DIRECT);
+    }
+
+    /**
+     * @param connector opens the connections to remote settings and properties files to record their version
+     */
+    public TrackingIvySettings(@NotNull IvySettingsSources.Connector connector) {
+        this.sources = new IvySettingsSources(connector);
+    }
+
+    @NotNull
+    public IvySettingsSources getSources() {
+        return sources;
+    }
+
+    /**
+     * @return whether a value using the base dir variables or a relative file was resolved so far, in which case
+     *         the settings can't be shared by modules with another base dir
+     */
+    public boolean isBaseDirUsed() {
+        return baseDirUsed;
+    }
+
+    @Override
+    public synchronized String substitute(String str) {
+        if (IvySettingsFingerprint.usesBaseDir(str)) {
+            baseDirUsed = true;
+        }
+        return super.substitute(str);
+    }
+
+    @Override
+    public synchronized File resolveFile(String fileName) {
+        if (fileName != null && !new File(fileName).isAbsolute()) {
+            baseDirUsed = true;
+        }
+        return super.resolveFile(fileName);
+    }
+
+    @Override
+    public synchronized void setSettingsVariables(File settingsFile) {
+        sources.addFile(settingsFile);
+        super.setSettingsVariables(settingsFile);
+    }
+
+    @Override
+    public synchronized void setSettingsVariables(URL settingsURL) {
+        sources.addUrl(settingsURL);
+        super.setSettingsVariables(settingsURL);
+    }
+
+    @Override
+    public synchronized void loadProperties(URL url, boolean overwrite) throws IOException {
+        if (IvySettingsSources.isRemote(url)) {
+            // load what was recorded, like Ivy would load the stream of the url
+            final Properties properties = new Properties();
+            properties.load(new ByteArrayInputStream(sources.read(url)));
+            addAllVariables(properties, overwrite);
+        } else {
+            sources.addUrl(url);
+            super.loadProperties(url, overwrite);
+        }
+    }
+
+    @Override
+    public synchronized void loadProperties(File file, boolean overwrite) throws IOException {
+        sources.addFile(file);
+        super.loadProperties(file, overwrite);
+    }
+}
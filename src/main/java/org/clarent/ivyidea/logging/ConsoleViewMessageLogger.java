@@ -20,15 +20,27 @@ import com.intellij.execution.ui.ConsoleView;
 import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.apache.ivy.util.AbstractMessageLogger;
 import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
 
+import java.util.concurrent.TimeUnit;
+
 import static com.intellij.execution.ui.ConsoleViewContentType.SYSTEM_OUTPUT;
 
+/**
+ * Logs ivy messages to the IvyIDEA console. Messages are collected in a bounded buffer and printed in batches a few
+ * times per second, so verbose logging doesn't flood the event dispatch thread; when the buffer overflows the oldest
+ * messages are dropped and the number of dropped messages is printed instead.
+ */
 public class ConsoleViewMessageLogger extends AbstractMessageLogger {
 
+    private static final int BUFFER_CAPACITY = 10000;
+    private static final long FLUSH_DELAY_MILLIS = 200;
+
     private final ConsoleView consoleView;
     private final IvyLogLevel threshold;
+    private final MessageBuffer<ConsoleViewContentType> buffer = new MessageBuffer<>(BUFFER_CAPACITY);
 
     public ConsoleViewMessageLogger(final Project project, final ConsoleView consoleView) {
         this.consoleView = consoleView;
@@ -58,10 +70,20 @@ public class ConsoleViewMessageLogger extends AbstractMessageLogger {
     }
 
     private void logToConsoleView(final String message, final ConsoleViewContentType contentType) {
-        ApplicationManager.getApplication().invokeLater(new Runnable() {
-            public void run() {
-                consoleView.print(message, contentType);
-            }
-        });
+        if (buffer.add(message, contentType)) {
+            AppExecutorUtil.getAppScheduledExecutorService().schedule(
+                    () -> ApplicationManager.getApplication().invokeLater(this::flush),
+                    FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        final MessageBuffer.Batch<ConsoleViewContentType> batch = buffer.drain();
+        if (batch.getDroppedCount() > 0) {
+            consoleView.print("[" + batch.getDroppedCount() + " log message(s) dropped]\n", SYSTEM_OUTPUT);
+        }
+        for (MessageBuffer.Message<ConsoleViewContentType> message : batch.getMessages()) {
+            consoleView.print(message.getText(), message.getType());
+        }
     }
 }
\ No newline at end of file
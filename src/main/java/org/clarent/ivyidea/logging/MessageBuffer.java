@@ -0,0 +1,124 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.logging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bounded buffer of log messages waiting to be printed. When it is full the oldest messages are dropped, and the
+ * number of dropped messages is handed out with the next batch.
+ *
+ * @param <T> the type that tells how a message is to be printed
+ */
+class MessageBuffer<T> {
+
+    private final int capacity;
+    private final ArrayDeque<Message<T>> messages = new ArrayDeque<>();
+    private int droppedCount;
+    private boolean flushPending;
+
+    MessageBuffer(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * @return true if the message is the first one since the last {@link #drain()}, so a flush should be scheduled
+     */
+    synchronized boolean add(String text, T type) {
+        if (messages.size() == capacity) {
+            messages.removeFirst();
+            droppedCount++;
+        }
+        messages.addLast(new Message<>(text, type));
+        if (flushPending) {
+            return false;
+        }
+        flushPending = true;
+        return true;
+    }
+
+    /**
+     * Takes all buffered messages, joining consecutive messages of the same type.
+     */
+    synchronized Batch<T> drain() {
+        final List<Message<T>> chunks = new ArrayList<>();
+        StringBuilder text = null;
+        T type = null;
+        for (Message<T> message : messages) {
+            if (text != null && Objects.equals(type, message.type)) {
+                text.append(message.text);
+            } else {
+                if (text != null) {
+                    chunks.add(new Message<>(text.toString(), type));
+                }
+                text = new StringBuilder(message.text);
+                type = message.type;
+            }
+        }
+        if (text != null) {
+            chunks.add(new Message<>(text.toString(), type));
+        }
+
+        final Batch<T> batch = new Batch<>(droppedCount, chunks);
+        messages.clear();
+        droppedCount = 0;
+        flushPending = false;
+        return batch;
+    }
+
+    static class Batch<T> {
+
+        private final int droppedCount;
+        private final List<Message<T>> messages;
+
+        private Batch(int droppedCount, List<Message<T>> messages) {
+            this.droppedCount = droppedCount;
+            this.messages = Collections.unmodifiableList(messages);
+        }
+
+        int getDroppedCount() {
+            return droppedCount;
+        }
+
+        List<Message<T>> getMessages() {
+            return messages;
+        }
+    }
+
+    static class Message<T> {
+
+        private final String text;
+        private final T type;
+
+        private Message(String text, T type) {
+            this.text = text;
+            this.type = type;
+        }
+
+        String getText() {
+            return text;
+        }
+
+        T getType() {
+            return type;
+        }
+    }
+}
@@ -20,30 +20,32 @@ import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import org.apache.ivy.Ivy;
 import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleId;
 import org.apache.ivy.core.module.id.ModuleRevisionId;
 import org.apache.ivy.core.report.ArtifactDownloadReport;
 import org.apache.ivy.core.report.ConfigurationResolveReport;
 import org.apache.ivy.core.report.ResolveReport;
-import org.apache.ivy.core.resolve.DownloadOptions;
 import org.apache.ivy.core.resolve.IvyNode;
+import org.apache.ivy.core.resolve.IvyNodeCallers;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.apache.ivy.plugins.version.VersionMatcher;
 import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
 import org.clarent.ivyidea.config.model.ArtifactTypeSettings;
 import org.clarent.ivyidea.exception.IvyFileReadException;
 import org.clarent.ivyidea.exception.IvySettingsFileReadException;
 import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
-import org.clarent.ivyidea.ivy.IvyManager;
 import org.clarent.ivyidea.ivy.IvyUtil;
+import org.clarent.ivyidea.ivy.ResolveSession;
 import org.clarent.ivyidea.resolve.dependency.*;
 import org.clarent.ivyidea.resolve.problem.ResolveProblem;
+import org.clarent.ivyidea.util.FileStatCache;
 
 import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.logging.Logger;
 
 /**
@@ -53,15 +55,25 @@ import java.util.logging.Logger;
 class DependencyResolver {
 
     private static final Logger LOGGER = Logger.getLogger(DependencyResolver.class.getName());
+    private static final String SNAPSHOT = "SNAPSHOT";
 
     private final List<ResolveProblem> resolveProblems;
     private final List<ExternalDependency> resolvedExternalDependencies;
     private final List<InternalDependency> resolvedInternalDependencies;
+    private final List<AdditionalArtifact> additionalArtifacts;
+    private final List<ExternalDependency> unverifiedExternalDependencies;
+
+    private Ivy ivy;
+    private ArtifactTypeSettings artifactTypeSettings;
+    private FileStatCache fileStatCache = new FileStatCache();
+    private boolean dynamicRevisions;
 
     public DependencyResolver() {
         resolveProblems = new ArrayList<>();
         resolvedExternalDependencies = new ArrayList<>();
         resolvedInternalDependencies = new ArrayList<>();
+        additionalArtifacts = new ArrayList<>();
+        unverifiedExternalDependencies = new ArrayList<>();
     }
 
     public List<ResolveProblem> getResolveProblems() {
@@ -76,46 +88,141 @@ class DependencyResolver {
         return Collections.unmodifiableList(resolvedInternalDependencies);
     }
 
-    public void resolve(Module module, IvyManager ivyManager) throws IvySettingsNotFoundException, IvyFileReadException, IvySettingsFileReadException {
+    /**
+     * @return whether the last resolve depended on dynamic or changing revisions, see {@link #hasDynamicRevisions(Ivy, ResolveReport)}
+     */
+    public boolean hasDynamicRevisions() {
+        return dynamicRevisions;
+    }
+
+    /**
+     * @return the Ivy engine used for the last resolve, null if nothing has been resolved yet
+     */
+    public Ivy getIvy() {
+        return ivy;
+    }
+
+    /**
+     * @return the sources and javadoc artifacts that were not part of the resolve report, and still have to be
+     *         downloaded before they can be added as dependencies
+     */
+    public Set<Artifact> getAdditionalArtifacts() {
+        final Set<Artifact> result = new LinkedHashSet<>();
+        for (AdditionalArtifact additionalArtifact : additionalArtifacts) {
+            result.add(additionalArtifact.artifact);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the downloaded additional artifacts as dependencies; artifacts without a download report are left out.
+     */
+    public void addAdditionalArtifacts(Map<Artifact, ArtifactDownloadReport> downloadReports) {
+        for (AdditionalArtifact additionalArtifact : additionalArtifacts) {
+            final ArtifactDownloadReport downloadReport = downloadReports.get(additionalArtifact.artifact);
+            if (downloadReport != null) {
+                addExternalDependency(additionalArtifact.artifact, downloadReport.getLocalFile(), additionalArtifact.configuration);
+            }
+        }
+        additionalArtifacts.clear();
+        verifyExternalDependencies();
+    }
+
+    public void resolve(Module module, ResolveSession session) throws IvySettingsNotFoundException, IvyFileReadException, IvySettingsFileReadException {
         final File ivyFile = IvyUtil.getIvyFile(module);
         if (ivyFile == null) {
             throw new IvyFileReadException(null, module.getName(), null);
         }
 
-        final Ivy ivy = ivyManager.getIvy(module);
+        final Ivy ivy = session.getIvy(module);
+        fileStatCache = session.getFileStatCache();
+        final ResolveTimings timings = session.getResolveTimings();
+        session.enter(ivy);
         try {
-            final ResolveReport resolveReport = ivy.resolve(ivyFile.toURI().toURL(), IvyIdeaConfigHelper.createResolveOptions(module));
-            extractDependencies(ivy, resolveReport, new IntellijModuleDependencies(module, ivyManager));
+            final ResolveOptions resolveOptions = IvyIdeaConfigHelper.createResolveOptions(module);
+            long start = ResolveTimings.start();
+            // the descriptor is taken from the shared cache instead of having Ivy parse the file again
+            final ModuleDescriptor descriptor = IvyUtil.getModuleDescriptor(ivyFile, ivy, session.getIvyManager().getSettingsFingerprint(module), resolveOptions.isValidate());
+            timings.add(module.getName(), ResolveTimings.Phase.PARSE, start);
+
+            start = ResolveTimings.start();
+            final ResolveReport resolveReport = ivy.resolve(descriptor, resolveOptions);
+            timings.add(module.getName(), ResolveTimings.Phase.RESOLVE, start);
+
+            start = ResolveTimings.start();
+            this.ivy = ivy;
+            this.dynamicRevisions = hasDynamicRevisions(ivy, resolveReport);
+            final Project project = module.getProject();
+            extractDependencies(resolveReport, IvyIdeaConfigHelper.getArtifactTypeSettings(project), ExtractOptions.forProject(project), session.getIvyModules());
+            timings.add(module.getName(), ResolveTimings.Phase.EXTRACT, start);
         } catch (ParseException | IOException e) {
             throw new IvyFileReadException(ivyFile.getAbsolutePath(), module.getName(), e);
+        } finally {
+            session.exit();
         }
     }
 
-    // TODO: This method performs way too much tasks -- refactor it!
-    protected void extractDependencies(Ivy ivy, ResolveReport resolveReport, IntellijModuleDependencies moduleDependencies) {
-        final String[] resolvedConfigurations = resolveReport.getConfigurations();
-        for (String resolvedConfiguration : resolvedConfigurations) {
-            ConfigurationResolveReport configurationReport = resolveReport.getConfigurationReport(resolvedConfiguration);
+    /**
+     * Tells whether the outcome of a resolve can change while its local inputs stay the same, because a dependency
+     * asks for a dynamic revision (latest.integration, a range, ...) or a changing one. The changing patterns of
+     * Ivy's resolvers are not accessible, so revisions ending in SNAPSHOT, the usual pattern, count as changing too.
+     */
+    static boolean hasDynamicRevisions(Ivy ivy, ResolveReport resolveReport) {
+        final VersionMatcher versionMatcher = ivy.getSettings().getVersionMatcher();
+        for (IvyNode dependency : resolveReport.getDependencies()) {
+            for (IvyNodeCallers.Caller caller : dependency.getAllCallers()) {
+                final DependencyDescriptor dependencyDescriptor = caller.getDependencyDescriptor();
+                if (dependencyDescriptor == null) {
+                    continue;
+                }
+                final ModuleRevisionId askedRevision = dependencyDescriptor.getDependencyRevisionId();
+                if (dependencyDescriptor.isChanging() || versionMatcher.isDynamic(askedRevision)
+                        || (askedRevision.getRevision() != null && askedRevision.getRevision().endsWith(SNAPSHOT))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 
-            boolean detectDependenciesOnOtherModulesWhileResolving = IvyIdeaConfigHelper.detectDependenciesOnOtherModulesWhileResolving(moduleDependencies.getModule().getProject());
+    /**
+     * Adds the dependencies, problems and additional artifacts found in the report; this only depends on the report
+     * and the given settings, so it can be run without a project.
+     *
+     * @param ivyModules the modules of the project by ivy module id, see {@link ResolveSession#getIvyModules()}
+     */
+    void extractDependencies(ResolveReport resolveReport, ArtifactTypeSettings artifactTypeSettings, ExtractOptions options, Map<ModuleId, Module> ivyModules) {
+        this.artifactTypeSettings = artifactTypeSettings;
+        final boolean detectDependenciesOnOtherModulesWhileResolving = options.detectModuleDependencies;
+        final boolean attachSources = options.attachSources;
+        final boolean attachJavadocs = options.attachJavadocs;
+        final boolean libraryPerConfiguration = options.libraryPerConfiguration;
+        final IntellijModuleDependencies moduleDependencies = new IntellijModuleDependencies(ivyModules, resolveReport.getModuleDescriptor().getModuleRevisionId().getModuleId());
 
-            // TODO: Refactor this a bit
-            registerProblems(configurationReport, moduleDependencies, detectDependenciesOnOtherModulesWhileResolving);
+        // Modules often show up in many configurations; everything that doesn't depend on the configuration is
+        // looked up once for the whole report, and artifacts that end up in the same library are only added once.
+        final Set<Artifact> resolvedArtifacts = new HashSet<>(resolveReport.getArtifacts());
+        final Map<ModuleRevisionId, List<Artifact>> sourcesAndJavadocs = new HashMap<>();
+        final Map<String, Set<Artifact>> addedArtifactsPerLibrary = new HashMap<>();
+        final Set<ModuleId> addedModuleDependencies = new HashSet<>();
+        final Set<ModuleRevisionId> reportedUnresolvedDependencies = new HashSet<>();
 
+        for (String resolvedConfiguration : resolveReport.getConfigurations()) {
+            final ConfigurationResolveReport configurationReport = resolveReport.getConfigurationReport(resolvedConfiguration);
+            final Set<Artifact> addedArtifacts = addedArtifactsPerLibrary.computeIfAbsent(libraryPerConfiguration ? resolvedConfiguration : "", library -> new HashSet<>());
 
-            Set<ModuleRevisionId> dependencies = configurationReport.getModuleRevisionIds();
-            for (ModuleRevisionId dependency : dependencies) {
+            registerProblems(configurationReport, moduleDependencies, detectDependenciesOnOtherModulesWhileResolving, addedModuleDependencies, reportedUnresolvedDependencies);
+
+            for (ModuleRevisionId dependency : configurationReport.getModuleRevisionIds()) {
                 if (detectDependenciesOnOtherModulesWhileResolving && moduleDependencies.isInternalIntellijModuleDependency(dependency.getModuleId())) {
                     // If the user has chosen to detect dependencies on internal modules we add a module dependency rather
                     // than a dependency on an external library.
-                    resolvedInternalDependencies.add(new InternalDependency(moduleDependencies.getModuleDependency(dependency.getModuleId())));
+                    addInternalDependency(moduleDependencies, dependency.getModuleId(), addedModuleDependencies);
                 } else {
-                    final Project project = moduleDependencies.getModule().getProject();
-                    final ArtifactDownloadReport[] artifactDownloadReports = configurationReport.getDownloadReports(dependency);
-                    for (ArtifactDownloadReport artifactDownloadReport : artifactDownloadReports) {
-                        final Artifact artifact = artifactDownloadReport.getArtifact();
-                        final File artifactFile = artifactDownloadReport.getLocalFile();
-                        addExternalDependency(artifact, artifactFile, resolvedConfiguration, project);
+                    for (ArtifactDownloadReport artifactDownloadReport : configurationReport.getDownloadReports(dependency)) {
+                        if (addedArtifacts.add(artifactDownloadReport.getArtifact())) {
+                            addExternalDependency(artifactDownloadReport.getArtifact(), artifactDownloadReport.getLocalFile(), resolvedConfiguration);
+                        }
                     }
 
                     // If activated manually download any missing javadoc or source dependencies,
@@ -123,65 +230,98 @@ class DependencyResolver {
                     // This means that dependencies in ivy.xml don't need to explicitly include configurations
                     // for javadoc or sources, just to ensure that the plugin can see them. The plugin will
                     // get all javadocs and sources it can find for each dependency.
-                    final boolean attachSources = IvyIdeaConfigHelper.alwaysAttachSources(project);
-                    final boolean attachJavadocs = IvyIdeaConfigHelper.alwaysAttachJavadocs(project);
+                    // The downloads themselves are left to the caller, see getAdditionalArtifacts().
                     if (attachSources || attachJavadocs) {
-                        final IvyNode node = configurationReport.getDependency(dependency);
-                        final ModuleDescriptor md = node.getDescriptor();
-                        final Artifact[] artifacts = md.getAllArtifacts();
+                        final List<Artifact> artifacts = sourcesAndJavadocs.computeIfAbsent(dependency,
+                                mrid -> getSourcesAndJavadocs(configurationReport.getDependency(mrid), resolvedArtifacts, attachSources, attachJavadocs));
                         for (Artifact artifact : artifacts) {
-                            // TODO: if sources are found, don't bother attaching javadoc?
-                            // That way, IDEA will generate the javadoc and resolve links to other javadocs
-                            if ((attachSources && isSource(project, artifact))
-                                    || (attachJavadocs && isJavadoc(project, artifact))) {
-                                if (resolveReport.getArtifacts().contains(artifact)) {
-                                    continue; // already resolved, ignore.
-                                }
-
-                                // try to download
-                                ArtifactDownloadReport adr = ivy.getResolveEngine().download(artifact, new DownloadOptions());
-                                addExternalDependency(artifact, adr.getLocalFile(), resolvedConfiguration, project);
+                            if (addedArtifacts.add(artifact)) {
+                                additionalArtifacts.add(new AdditionalArtifact(artifact, resolvedConfiguration));
                             }
                         }
                     }
                 }
             }
         }
+        verifyExternalDependencies();
+    }
+
+    /**
+     * Checks the files of all dependencies added since the last check at once, and moves the ones without a file to
+     * the problems.
+     */
+    private void verifyExternalDependencies() {
+        final List<File> files = new ArrayList<>(unverifiedExternalDependencies.size());
+        for (ExternalDependency externalDependency : unverifiedExternalDependencies) {
+            if (externalDependency.getLocalFile() != null) {
+                files.add(externalDependency.getLocalFile());
+            }
+        }
+        fileStatCache.checkAll(files);
+
+        for (ExternalDependency externalDependency : unverifiedExternalDependencies) {
+            if (externalDependency.isMissing(fileStatCache)) {
+                resolveProblems.add(new ResolveProblem(
+                        externalDependency.getArtifact().getModuleRevisionId().toString(),
+                        "File not found: " + externalDependency.getLocalFile().getAbsolutePath())
+                );
+            } else {
+                resolvedExternalDependencies.add(externalDependency);
+            }
+        }
+        unverifiedExternalDependencies.clear();
+    }
+
+    private List<Artifact> getSourcesAndJavadocs(IvyNode node, Set<Artifact> resolvedArtifacts, boolean attachSources, boolean attachJavadocs) {
+        if (node == null || node.getDescriptor() == null) {
+            return Collections.emptyList();
+        }
+        final List<Artifact> result = new ArrayList<>();
+        for (Artifact artifact : node.getDescriptor().getAllArtifacts()) {
+            // TODO: if sources are found, don't bother attaching javadoc?
+            // That way, IDEA will generate the javadoc and resolve links to other javadocs
+            if ((attachSources && getCategory(artifact) == ArtifactTypeSettings.DependencyCategory.Sources)
+                    || (attachJavadocs && getCategory(artifact) == ArtifactTypeSettings.DependencyCategory.Javadoc)) {
+                if (resolvedArtifacts.contains(artifact)) {
+                    continue; // already resolved, ignore.
+                }
+
+                result.add(artifact);
+            }
+        }
+        return result;
     }
 
-    private void addExternalDependency(Artifact artifact, File artifactFile, String resolvedConfiguration, Project project) {
-        ExternalDependency externalDependency = ExternalDependencyFactory.getInstance().createExternalDependency(artifact, artifactFile, project, resolvedConfiguration);
-        if (externalDependency == null) {
+    private void addInternalDependency(IntellijModuleDependencies moduleDependencies, ModuleId moduleId, Set<ModuleId> addedModuleDependencies) {
+        if (addedModuleDependencies.add(moduleId)) {
+            resolvedInternalDependencies.add(new InternalDependency(moduleDependencies.getModuleDependency(moduleId)));
+        }
+    }
+
+    private void addExternalDependency(Artifact artifact, File artifactFile, String resolvedConfiguration) {
+        final ArtifactTypeSettings.DependencyCategory category = getCategory(artifact);
+        if (category == null) {
             resolveProblems.add(new ResolveProblem(
                     artifact.getModuleRevisionId().toString(),
                     "Unrecognized artifact type: " + artifact.getType() + ", will not add this as a dependency in IntelliJ.",
                     null));
             LOGGER.warning("Artifact of unrecognized type " + artifact.getType() + " found, *not* adding as a dependency.");
-        }
-        else if (externalDependency.isMissing()) {
-            resolveProblems.add(new ResolveProblem(
-                    artifact.getModuleRevisionId().toString(),
-                    "File not found: " + externalDependency.getLocalFile().getAbsolutePath())
-            );
         } else {
-            resolvedExternalDependencies.add(externalDependency);
+            // the files are checked all at once afterwards
+            unverifiedExternalDependencies.add(ExternalDependencyFactory.getInstance().createExternalDependency(category, artifact, artifactFile, resolvedConfiguration));
         }
     }
 
-    private boolean isSource(Project project, Artifact artifact) {
-        return ArtifactTypeSettings.DependencyCategory.Sources == ExternalDependencyFactory.determineCategory(project, artifact);
+    private ArtifactTypeSettings.DependencyCategory getCategory(Artifact artifact) {
+        return artifactTypeSettings == null ? null : artifactTypeSettings.getCategoryForType(artifact.getType());
     }
 
-    private boolean isJavadoc(Project project, Artifact artifact) {
-        return ArtifactTypeSettings.DependencyCategory.Javadoc == ExternalDependencyFactory.determineCategory(project, artifact);
-    }
-
-    private void registerProblems(ConfigurationResolveReport configurationReport, IntellijModuleDependencies moduleDependencies, boolean detectDependenciesOnOtherModulesWhileResolving) {
+    private void registerProblems(ConfigurationResolveReport configurationReport, IntellijModuleDependencies moduleDependencies, boolean detectDependenciesOnOtherModulesWhileResolving,
+                                  Set<ModuleId> addedModuleDependencies, Set<ModuleRevisionId> reportedUnresolvedDependencies) {
         for (IvyNode unresolvedDependency : configurationReport.getUnresolvedDependencies()) {
             if (detectDependenciesOnOtherModulesWhileResolving && moduleDependencies.isInternalIntellijModuleDependency(unresolvedDependency.getModuleId())) {
-                // centralize  this!
-                resolvedInternalDependencies.add(new InternalDependency(moduleDependencies.getModuleDependency(unresolvedDependency.getModuleId())));
-            } else {
+                addInternalDependency(moduleDependencies, unresolvedDependency.getModuleId(), addedModuleDependencies);
+            } else if (reportedUnresolvedDependencies.add(unresolvedDependency.getId())) {
                 resolveProblems.add(new ResolveProblem(
                         unresolvedDependency.getId().toString(),
                         unresolvedDependency.getProblemMessage(),
@@ -190,4 +330,39 @@ class DependencyResolver {
             }
         }
     }
+
+    /**
+     * The project settings that decide what is extracted from a resolve report.
+     */
+    static class ExtractOptions {
+
+        private final boolean detectModuleDependencies;
+        private final boolean attachSources;
+        private final boolean attachJavadocs;
+        private final boolean libraryPerConfiguration;
+
+        ExtractOptions(boolean detectModuleDependencies, boolean attachSources, boolean attachJavadocs, boolean libraryPerConfiguration) {
+            this.detectModuleDependencies = detectModuleDependencies;
+            this.attachSources = attachSources;
+            this.attachJavadocs = attachJavadocs;
+            this.libraryPerConfiguration = libraryPerConfiguration;
+        }
+
+        static ExtractOptions forProject(Project project) {
+            return new ExtractOptions(IvyIdeaConfigHelper.detectDependenciesOnOtherModulesWhileResolving(project),
+                    IvyIdeaConfigHelper.alwaysAttachSources(project), IvyIdeaConfigHelper.alwaysAttachJavadocs(project),
+                    IvyIdeaConfigHelper.isLibraryNameIncludesConfiguration(project));
+        }
+    }
+
+    private static class AdditionalArtifact {
+
+        private final Artifact artifact;
+        private final String configuration;
+
+        private AdditionalArtifact(Artifact artifact, String configuration) {
+            this.artifact = artifact;
+            this.configuration = configuration;
+        }
+    }
 }
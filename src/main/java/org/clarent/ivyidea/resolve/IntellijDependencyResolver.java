@@ -17,16 +17,21 @@
 package org.clarent.ivyidea.resolve;
 
 import com.intellij.openapi.module.Module;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
 import org.clarent.ivyidea.exception.IvyFileReadException;
 import org.clarent.ivyidea.exception.IvySettingsFileReadException;
 import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
-import org.clarent.ivyidea.ivy.IvyManager;
+import org.clarent.ivyidea.ivy.ResolveSession;
 import org.clarent.ivyidea.resolve.dependency.ExternalDependency;
 import org.clarent.ivyidea.resolve.dependency.InternalDependency;
 import org.clarent.ivyidea.resolve.problem.ResolveProblem;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Wraps the actual resolve process and manages that it is done with the
@@ -40,11 +45,12 @@ public class IntellijDependencyResolver {
     private List<ExternalDependency> externalDependencies = Collections.emptyList();
     private List<InternalDependency> internalDependencies = Collections.emptyList();
     private List<ResolveProblem> problems = Collections.emptyList();
+    private DependencyResolver dependencyResolver;
 
-    private IvyManager ivyManager;
+    private ResolveSession session;
 
-    public IntellijDependencyResolver(IvyManager ivyManager) {
-        this.ivyManager = ivyManager;
+    public IntellijDependencyResolver(ResolveSession session) {
+        this.session = session;
     }
 
     public Module getModule() {
@@ -65,11 +71,39 @@ public class IntellijDependencyResolver {
 
     public void resolve(final Module module) throws IvySettingsNotFoundException, IvyFileReadException, IvySettingsFileReadException {
         this.module = module;
-        final DependencyResolver dependencyResolver = new DependencyResolver();
-        dependencyResolver.resolve(module, ivyManager);
+        dependencyResolver = new DependencyResolver();
+        dependencyResolver.resolve(module, session);
         externalDependencies = dependencyResolver.getResolvedExternalDependencies();
         internalDependencies = dependencyResolver.getResolvedInternalDependencies();
         problems = dependencyResolver.getResolveProblems();
     }
 
+    /**
+     * @return whether the module depends on dynamic or changing revisions, so that resolving it again can give other
+     *         dependencies even when the ivy file and settings did not change
+     */
+    public boolean hasDynamicRevisions() {
+        return dependencyResolver != null && dependencyResolver.hasDynamicRevisions();
+    }
+
+    /**
+     * @return the Ivy engine the module was resolved with, null if it hasn't been resolved
+     */
+    public Ivy getIvy() {
+        return dependencyResolver == null ? null : dependencyResolver.getIvy();
+    }
+
+    /**
+     * @return the sources and javadoc artifacts that still have to be downloaded, see {@link ParallelArtifactDownloader}
+     */
+    public Set<Artifact> getAdditionalArtifacts() {
+        return dependencyResolver == null ? Collections.emptySet() : dependencyResolver.getAdditionalArtifacts();
+    }
+
+    public void addAdditionalArtifacts(Map<Artifact, ArtifactDownloadReport> downloadReports) {
+        if (dependencyResolver != null) {
+            dependencyResolver.addAdditionalArtifacts(downloadReports);
+        }
+    }
+
 }
@@ -17,18 +17,10 @@
 package org.clarent.ivyidea.resolve;
 
 import com.intellij.openapi.module.Module;
-import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
-import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.apache.ivy.core.module.id.ModuleId;
-import org.clarent.ivyidea.exception.IvySettingsFileReadException;
-import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
-import org.clarent.ivyidea.intellij.IntellijUtils;
-import org.clarent.ivyidea.ivy.IvyManager;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
 import java.util.Map;
-import java.util.logging.Logger;
 
 /**
  * Holds the link between IntelliJ {@link com.intellij.openapi.module.Module}s and ivy
@@ -36,66 +28,24 @@ import java.util.logging.Logger;
  */
 class IntellijModuleDependencies {
 
-    private static final Logger LOGGER = Logger.getLogger(IntellijModuleDependencies.class.getName());
+    private final Map<ModuleId, Module> ivyModules;
+    private final ModuleId ownModuleId;
 
-    private IvyManager ivyManager;
-    private Module module;
-    private Map<ModuleId, Module> moduleDependencies = new HashMap<ModuleId, Module>();
-
-    public IntellijModuleDependencies(Module module, IvyManager ivyManager) throws IvySettingsNotFoundException, IvySettingsFileReadException {
-        this.module = module;
-        this.ivyManager = ivyManager;
-        fillModuleDependencies();
-    }
-
-    public Module getModule() {
-        return module;
+    /**
+     * @param ivyModules the modules of the project by ivy module id
+     * @param ownModuleId the id of the module being resolved, which is never a dependency of itself
+     */
+    public IntellijModuleDependencies(Map<ModuleId, Module> ivyModules, ModuleId ownModuleId) {
+        this.ivyModules = ivyModules;
+        this.ownModuleId = ownModuleId;
     }
 
     public boolean isInternalIntellijModuleDependency(ModuleId moduleId) {
-        return moduleDependencies.containsKey(moduleId);
-    }
-
-    public Module getModuleDependency(ModuleId moduleId) {
-        return moduleDependencies.get(moduleId);
-    }
-
-    private void fillModuleDependencies() throws IvySettingsNotFoundException, IvySettingsFileReadException {
-        final ModuleDescriptor descriptor = ivyManager.getModuleDescriptor(module);
-        if (descriptor != null) {
-            final DependencyDescriptor[] ivyDependencies = descriptor.getDependencies();
-            for (Module dependencyModule : IntellijUtils.getAllModulesWithIvyIdeaFacet(module.getProject())) {
-                if (!module.equals(dependencyModule)) {
-                    for (DependencyDescriptor ivyDependency : ivyDependencies) {
-                        final ModuleId ivyDependencyId = ivyDependency.getDependencyId();
-                        final ModuleId dependencyModuleId = getModuleId(dependencyModule);
-                        if (ivyDependencyId.equals(dependencyModuleId)) {
-                            LOGGER.info("Recognized dependency " + ivyDependency + " as intellij module '" + dependencyModule.getName() + "' in this project!");
-                            moduleDependencies.put(dependencyModuleId, dependencyModule);
-                            break;
-                        }
-                    }
-                }
-            }
-        }
+        return getModuleDependency(moduleId) != null;
     }
 
     @Nullable
-    private ModuleId getModuleId(Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
-        if (!moduleDependencies.containsValue(module)) {
-            final ModuleDescriptor ivyModuleDescriptor = ivyManager.getModuleDescriptor(module);
-            if (ivyModuleDescriptor != null) {
-                moduleDependencies.put(ivyModuleDescriptor.getModuleRevisionId().getModuleId(), module);
-            }
-
-        }
-        for (ModuleId moduleId : moduleDependencies.keySet()) {
-            if (module.equals(moduleDependencies.get(moduleId))) {
-                return moduleId;
-            }
-        }
-        return null;
+    public Module getModuleDependency(ModuleId moduleId) {
+        return moduleId.equals(ownModuleId) ? null : ivyModules.get(moduleId);
     }
-
-
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.report.ArtifactDownloadReport;
+import org.apache.ivy.core.report.DownloadStatus;
+import org.apache.ivy.core.resolve.DownloadOptions;
+import org.clarent.ivyidea.intellij.IvyIdeaMissingArtifactsService;
+import org.clarent.ivyidea.intellij.task.IvyProgressMonitor;
+import org.clarent.ivyidea.ivy.ResolveSession;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads the sources and javadoc artifacts that were left out of the resolve reports of a number of modules, using
+ * a bounded number of worker threads.
+ *
+ * This runs after all modules have been resolved: the downloads are pure I/O, and modules resolved with the same Ivy
+ * engine share them, so every artifact is only downloaded once. Artifacts that none of the repositories has are
+ * remembered in the {@link IvyIdeaMissingArtifactsService} and skipped on later resolves. The time spent on a download
+ * is recorded in the {@link ResolveSession} for the first module that needed the artifact.
+ */
+public class ParallelArtifactDownloader {
+
+    private final int threadCount;
+    private final IvyIdeaMissingArtifactsService missingArtifacts;
+    private final ResolveSession session;
+
+    public ParallelArtifactDownloader(int threadCount, IvyIdeaMissingArtifactsService missingArtifacts, ResolveSession session) {
+        this.threadCount = Math.max(1, threadCount);
+        this.missingArtifacts = missingArtifacts;
+        this.session = session;
+    }
+
+    /**
+     * Downloads the additional artifacts of the given resolvers and adds them to their dependencies.
+     *
+     * @param resolvers the resolvers of the modules that have been resolved
+     * @param indicator the progress indicator of the task doing the resolve
+     * @param progressMonitor the monitor that stops the workers when the task is cancelled
+     */
+    public void download(List<IntellijDependencyResolver> resolvers, final ProgressIndicator indicator, final IvyProgressMonitor progressMonitor) {
+        final Map<Ivy, Map<Artifact, Download>> downloadsPerIvy = new IdentityHashMap<>();
+        final List<Download> downloads = new ArrayList<>();
+        for (IntellijDependencyResolver resolver : resolvers) {
+            for (Artifact artifact : resolver.getAdditionalArtifacts()) {
+                if (missingArtifacts.isKnownMissing(artifact)) {
+                    continue;
+                }
+                final Map<Artifact, Download> ivyDownloads = downloadsPerIvy.computeIfAbsent(resolver.getIvy(), ivy -> new HashMap<>());
+                if (!ivyDownloads.containsKey(artifact)) {
+                    final Download download = new Download(resolver.getIvy(), artifact, resolver.getModule().getName());
+                    ivyDownloads.put(artifact, download);
+                    downloads.add(download);
+                }
+            }
+        }
+        if (downloads.isEmpty()) {
+            return;
+        }
+
+        final Queue<Download> remainingDownloads = new ConcurrentLinkedQueue<>(downloads);
+        final AtomicInteger downloadedCount = new AtomicInteger();
+        indicator.setIndeterminate(false);
+        indicator.setFraction(0);
+
+        final int workerCount = Math.min(threadCount, downloads.size());
+        final ExecutorService executor = Executors.newFixedThreadPool(workerCount, new ParallelDependencyResolver.ResolveThreadFactory("IvyIDEA Download"));
+        final List<Future<?>> workers = new ArrayList<>(workerCount);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(executor.submit(() -> {
+                    Download download;
+                    while ((download = remainingDownloads.poll()) != null) {
+                        indicator.checkCanceled();
+                        indicator.setText2("Downloading " + download.artifact.getName() + " (" + download.artifact.getType() + ") of " + download.artifact.getModuleRevisionId());
+                        progressMonitor.register(download.ivy);
+                        session.enter(download.ivy);
+                        download.ivy.pushContext();
+                        final long start = ResolveTimings.start();
+                        try {
+                            final ArtifactDownloadReport report = download.ivy.getResolveEngine().download(download.artifact, new DownloadOptions());
+                            if (isMissing(report)) {
+                                missingArtifacts.setMissing(download.artifact);
+                            } else {
+                                download.report = report;
+                            }
+                        } finally {
+                            session.getResolveTimings().add(download.moduleName, ResolveTimings.Phase.DOWNLOAD, start);
+                            download.ivy.popContext();
+                            session.exit();
+                            progressMonitor.unregister();
+                        }
+                        indicator.setFraction((double) downloadedCount.incrementAndGet() / downloads.size());
+                    }
+                }));
+            }
+            executor.shutdown();
+
+            for (Future<?> worker : workers) {
+                waitFor(worker, indicator);
+            }
+        } finally {
+            remainingDownloads.clear();
+            executor.shutdownNow();
+        }
+
+        for (IntellijDependencyResolver resolver : resolvers) {
+            final Map<Artifact, Download> ivyDownloads = downloadsPerIvy.get(resolver.getIvy());
+            if (ivyDownloads != null) {
+                final Map<Artifact, ArtifactDownloadReport> reports = new HashMap<>();
+                for (Map.Entry<Artifact, Download> entry : ivyDownloads.entrySet()) {
+                    if (entry.getValue().report != null) {
+                        reports.put(entry.getKey(), entry.getValue().report);
+                    }
+                }
+                resolver.addAdditionalArtifacts(reports);
+            }
+        }
+    }
+
+    private static boolean isMissing(ArtifactDownloadReport report) {
+        return report.getDownloadStatus() == DownloadStatus.FAILED
+                && ArtifactDownloadReport.MISSING_ARTIFACT.equals(report.getDownloadDetails());
+    }
+
+    private static void waitFor(Future<?> worker, ProgressIndicator indicator) {
+        try {
+            worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (indicator.isCanceled()) {
+                // whatever the worker ran into, e.g. the engine being interrupted, is due to the cancellation
+                throw new ProcessCanceledException(cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private static class Download {
+
+        private final Ivy ivy;
+        private final Artifact artifact;
+        private final String moduleName;
+        private volatile ArtifactDownloadReport report;
+
+        private Download(Ivy ivy, Artifact artifact, String moduleName) {
+            this.ivy = ivy;
+            this.artifact = artifact;
+            this.moduleName = moduleName;
+        }
+    }
+}
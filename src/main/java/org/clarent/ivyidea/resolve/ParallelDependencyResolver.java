@@ -0,0 +1,170 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.clarent.ivyidea.exception.IvyFileReadException;
+import org.clarent.ivyidea.exception.IvySettingsFileReadException;
+import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
+import org.clarent.ivyidea.intellij.task.IvyProgressMonitor;
+import org.clarent.ivyidea.ivy.ResolveSession;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves the dependencies of several modules at once, using a bounded number of worker threads.
+ *
+ * Every worker takes the next module from a shared queue until the queue is empty or the task is cancelled; while
+ * resolving it is registered with the {@link IvyProgressMonitor} so that cancelling the task stops all of them.
+ * The workers share the Ivy cache; the engines lock it per artifact, see {@link org.clarent.ivyidea.ivy.IvyUtil}.
+ */
+public class ParallelDependencyResolver {
+
+    private final ResolveSession session;
+    private final int threadCount;
+
+    public ParallelDependencyResolver(ResolveSession session, int threadCount) {
+        this.session = session;
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    /**
+     * Resolves the dependencies for all given modules.
+     *
+     * @param modules the modules to resolve
+     * @param indicator the progress indicator of the task doing the resolve
+     * @param progressMonitor the monitor that stops the workers when the task is cancelled
+     * @return the resolvers holding the results, in the same order as the given modules
+     * @throws IvySettingsNotFoundException if no settings file was configured or the configured file was not found
+     * @throws IvySettingsFileReadException if there was a problem opening or parsing the ivy settings file
+     * @throws IvyFileReadException         if there was a problem opening or parsing the ivy file
+     */
+    @NotNull
+    public List<IntellijDependencyResolver> resolve(Module[] modules, final ProgressIndicator indicator, final IvyProgressMonitor progressMonitor) throws IvySettingsNotFoundException, IvyFileReadException, IvySettingsFileReadException {
+        if (modules.length == 0) {
+            return Collections.emptyList();
+        }
+        final Queue<Module> modulesToResolve = new ConcurrentLinkedQueue<>(Arrays.asList(modules));
+        final Map<Module, IntellijDependencyResolver> resolvers = new ConcurrentHashMap<>();
+        final AtomicInteger resolvedCount = new AtomicInteger();
+
+        indicator.setIndeterminate(false);
+        indicator.setFraction(0);
+
+        final int workerCount = Math.min(threadCount, modules.length);
+        final ExecutorService executor = Executors.newFixedThreadPool(workerCount, new ResolveThreadFactory("IvyIDEA Resolve"));
+        final List<Future<Void>> workers = new ArrayList<>(workerCount);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(executor.submit(() -> {
+                    Module module;
+                    while ((module = modulesToResolve.poll()) != null) {
+                        indicator.checkCanceled();
+                        progressMonitor.register(session.getIvy(module));
+                        try {
+                            indicator.setText2("Resolving for module " + module.getName());
+                            final IntellijDependencyResolver resolver = new IntellijDependencyResolver(session);
+                            resolver.resolve(module);
+                            resolvers.put(module, resolver);
+                        } finally {
+                            progressMonitor.unregister();
+                        }
+                        indicator.setFraction((double) resolvedCount.incrementAndGet() / modules.length);
+                    }
+                    return null;
+                }));
+            }
+            // Let the worker threads die as soon as they run out of modules; the monitor waits for them to end
+            // when interrupting them.
+            executor.shutdown();
+
+            for (Future<Void> worker : workers) {
+                waitFor(worker, indicator);
+            }
+        } finally {
+            // make the remaining workers stop after their current module if one of them failed
+            modulesToResolve.clear();
+            executor.shutdownNow();
+        }
+
+        final List<IntellijDependencyResolver> result = new ArrayList<>(modules.length);
+        for (Module module : modules) {
+            final IntellijDependencyResolver resolver = resolvers.get(module);
+            if (resolver != null) {
+                result.add(resolver);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static void waitFor(Future<Void> worker, ProgressIndicator indicator) throws IvySettingsNotFoundException, IvyFileReadException, IvySettingsFileReadException {
+        try {
+            worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (indicator.isCanceled()) {
+                // whatever the worker ran into, e.g. the engine being interrupted, is due to the cancellation
+                throw new ProcessCanceledException(cause);
+            }
+            if (cause instanceof IvySettingsNotFoundException) {
+                throw (IvySettingsNotFoundException) cause;
+            }
+            if (cause instanceof IvyFileReadException) {
+                throw (IvyFileReadException) cause;
+            }
+            if (cause instanceof IvySettingsFileReadException) {
+                throw (IvySettingsFileReadException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    static class ResolveThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        ResolveThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        public Thread newThread(@NotNull Runnable runnable) {
+            final Thread thread = new Thread(runnable, namePrefix + " " + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve;
+
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.resolve.ResolveOptions;
+import org.clarent.ivyidea.config.IvyIdeaConfigHelper;
+import org.clarent.ivyidea.config.model.ArtifactTypeSettings;
+import org.clarent.ivyidea.exception.IvySettingsFileReadException;
+import org.clarent.ivyidea.exception.IvySettingsNotFoundException;
+import org.clarent.ivyidea.ivy.IvyManager;
+import org.clarent.ivyidea.ivy.IvySettingsFingerprint;
+import org.clarent.ivyidea.ivy.IvyUtil;
+import org.clarent.ivyidea.ivy.ResolveSession;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Computes a fingerprint of everything that determines the outcome of resolving a module: the content of its ivy
+ * file, its effective settings and the files they were loaded from, its properties, the configurations to resolve,
+ * the resolve options and the project settings that shape the created libraries. When dependencies on other modules
+ * are detected, the ids of all modules in the project are part of it as well.
+ *
+ * When the project is configured to skip unchanged modules, resolving for all modules, manually or after ivy file
+ * changes, skips the modules whose fingerprint did not change since their last successful resolve. Only resolves that
+ * are bound to give the same result again are remembered, see
+ * {@link org.clarent.ivyidea.AbstractResolveAction#getRepeatableInputFingerprint}.
+ */
+public class ResolveInputs {
+
+    private static final Logger LOGGER = Logger.getLogger(ResolveInputs.class.getName());
+
+    private final Project project;
+    private final ResolveSession session;
+    private final IvyManager ivyManager;
+    private String projectInputs;
+
+    public ResolveInputs(ResolveSession session) {
+        this.project = session.getProject();
+        this.session = session;
+        this.ivyManager = session.getIvyManager();
+    }
+
+    /**
+     * @param module the module for which to compute the fingerprint
+     * @return the fingerprint of the resolve inputs, or null if it could not be computed
+     */
+    @Nullable
+    public String getFingerprint(Module module) throws IvySettingsNotFoundException, IvySettingsFileReadException {
+        final File ivyFile = IvyUtil.getIvyFile(module);
+        if (ivyFile == null) {
+            return null;
+        }
+        final byte[] ivyFileContent;
+        try {
+            ivyFileContent = Files.readAllBytes(ivyFile.toPath());
+        } catch (IOException e) {
+            LOGGER.info("Could not read " + ivyFile + " to check it for changes: " + e);
+            return null;
+        }
+
+        final IvySettingsFingerprint settingsFingerprint = ivyManager.getSettingsFingerprint(module);
+        final ResolveOptions resolveOptions = IvyIdeaConfigHelper.createResolveOptions(module);
+        final SortedSet<String> configurations = new TreeSet<>(IvyIdeaConfigHelper.getConfigurationsToResolve(module));
+
+        final Digest digest = new Digest();
+        digest.add(getProjectInputs());
+        digest.add(ivyFile.getAbsolutePath());
+        digest.add(ivyFileContent);
+        digest.add(settingsFingerprint.getSettingsFile());
+        digest.add(String.valueOf(settingsFingerprint.getBaseDir()));
+        digest.add(new TreeMap<>(settingsFingerprint.getProperties()).toString());
+        digest.add(ivyManager.getSettingsSources(module).getVersion());
+        digest.add(configurations.toString());
+        digest.add(resolveOptions.isValidate() + "|" + resolveOptions.isTransitive() + "|" + resolveOptions.isUseCacheOnly());
+        return digest.toHex();
+    }
+
+    /**
+     * The inputs that are the same for every module, computed once.
+     */
+    @NotNull
+    private synchronized String getProjectInputs() throws IvySettingsNotFoundException, IvySettingsFileReadException {
+        if (projectInputs == null) {
+            final StringBuilder result = new StringBuilder();
+            result.append(IvyIdeaConfigHelper.alwaysAttachSources(project)).append('|');
+            result.append(IvyIdeaConfigHelper.alwaysAttachJavadocs(project)).append('|');
+            result.append(IvyIdeaConfigHelper.isLibraryNameIncludesModule(project)).append('|');
+            result.append(IvyIdeaConfigHelper.isLibraryNameIncludesConfiguration(project)).append('|');
+            result.append(IvyIdeaConfigHelper.isUseProjectLibraries(project)).append('|');
+            final ArtifactTypeSettings artifactTypeSettings = IvyIdeaConfigHelper.getArtifactTypeSettings(project);
+            for (ArtifactTypeSettings.DependencyCategory category : ArtifactTypeSettings.DependencyCategory.values()) {
+                result.append(category).append('=').append(artifactTypeSettings.getTypesStringForCategory(category)).append('|');
+            }
+            final boolean detectModuleDependencies = IvyIdeaConfigHelper.detectDependenciesOnOtherModulesWhileResolving(project);
+            result.append(detectModuleDependencies).append('|');
+            if (detectModuleDependencies) {
+                // a module appearing, disappearing or changing its id turns library dependencies into module
+                // dependencies or the other way round
+                final SortedSet<String> moduleIds = new TreeSet<>();
+                for (Map.Entry<ModuleId, Module> entry : session.getIvyModules().entrySet()) {
+                    moduleIds.add(entry.getValue().getName() + '=' + entry.getKey());
+                }
+                result.append(moduleIds);
+            }
+            projectInputs = result.toString();
+        }
+        return projectInputs;
+    }
+
+    private static class Digest {
+
+        private final MessageDigest messageDigest;
+
+        Digest() {
+            try {
+                messageDigest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void add(@Nullable String value) {
+            add(value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void add(byte[] value) {
+            // prefix the length so that adjacent values can't be confused
+            final int length = value.length;
+            messageDigest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+            messageDigest.update(value);
+        }
+
+        String toHex() {
+            final StringBuilder result = new StringBuilder();
+            for (byte b : messageDigest.digest()) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent in each phase of a resolve, per module. Modules are resolved on several threads, so the time of a phase
+ * is added by whichever thread ran it; work that is shared by all modules, like committing the module models, is
+ * recorded under {@link #ALL_MODULES}.
+ */
+public class ResolveTimings {
+
+    public static final String ALL_MODULES = "<all modules>";
+
+    public enum Phase {
+        SETTINGS("settings", "Settings"),
+        PARSE("parse", "Descriptor parse"),
+        RESOLVE("resolve", "Ivy resolve"),
+        EXTRACT("extract", "Extract dependencies"),
+        DOWNLOAD("download", "Downloads"),
+        COMMIT("commit", "Model commit");
+
+        private final String key;
+        private final String displayName;
+
+        Phase(String key, String displayName) {
+            this.key = key;
+            this.displayName = displayName;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private final long startTime = System.currentTimeMillis();
+    private final Map<String, long[]> nanosPerModule = new LinkedHashMap<>();
+
+    /**
+     * @return the current time, to be passed to {@link #add(String, Phase, long)} once the phase is over
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds the time since the given start to the phase of the given module.
+     */
+    public void add(String moduleName, Phase phase, long startNanos) {
+        addNanos(moduleName, phase, System.nanoTime() - startNanos);
+    }
+
+    public synchronized void addNanos(String moduleName, Phase phase, long nanos) {
+        nanosPerModule.computeIfAbsent(moduleName, name -> new long[Phase.values().length])[phase.ordinal()] += nanos;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public synchronized List<String> getModuleNames() {
+        return new ArrayList<>(nanosPerModule.keySet());
+    }
+
+    public synchronized long getMillis(String moduleName, Phase phase) {
+        final long[] nanos = nanosPerModule.get(moduleName);
+        return nanos == null ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos[phase.ordinal()]);
+    }
+
+    public synchronized long getTotalMillis(String moduleName) {
+        final long[] nanos = nanosPerModule.get(moduleName);
+        return nanos == null ? 0 : TimeUnit.NANOSECONDS.toMillis(Arrays.stream(nanos).sum());
+    }
+
+    /**
+     * @return the timings in milliseconds as a JSON document, so they can be compared between resolves
+     */
+    public synchronized String toJson() {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n  \"started\": \"").append(dateFormat.format(new Date(startTime))).append("\",\n  \"modules\": [");
+        String separator = "\n";
+        for (String moduleName : nanosPerModule.keySet()) {
+            json.append(separator).append("    {\"module\": ");
+            appendString(json, moduleName);
+            for (Phase phase : Phase.values()) {
+                json.append(", \"").append(phase.getKey()).append("\": ").append(getMillis(moduleName, phase));
+            }
+            json.append(", \"total\": ").append(getTotalMillis(moduleName)).append('}');
+            separator = ",\n";
+        }
+        json.append(nanosPerModule.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        return json.toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve;
+
+import java.util.*;
+
+/**
+ * Counts, per Ivy resolver, how many dependencies and artifacts were asked for, how many of them came from the cache
+ * and how many had to be fetched, the number of bytes fetched and how long resolving a dependency took.
+ */
+public class ResolverMetrics {
+
+    private final Map<String, Counters> countersPerResolver = new TreeMap<>();
+
+    /**
+     * Records the outcome of resolving a single dependency.
+     *
+     * @param resolverName   the resolver that found the dependency, or the one that was asked if it wasn't found
+     * @param found          whether the dependency was found
+     * @param searched       whether the resolver had to look in its repository, rather than in the cache
+     * @param fetchedBytes   the size of the fetched metadata, 0 if nothing was fetched
+     * @param durationMillis the time it took to resolve the dependency
+     */
+    public synchronized void addDependency(String resolverName, boolean found, boolean searched, long fetchedBytes, long durationMillis) {
+        final Counters counters = getCounters(resolverName);
+        counters.dependencies++;
+        if (!found) {
+            counters.notFound++;
+        } else if (searched) {
+            counters.fetchedDependencies++;
+        } else {
+            counters.cachedDependencies++;
+        }
+        counters.bytes += fetchedBytes;
+        counters.durations.add(durationMillis);
+    }
+
+    /**
+     * Records that an artifact was asked for; if it isn't in the cache, {@link #addArtifactFetch} follows.
+     */
+    public synchronized void addArtifactRequest(String resolverName) {
+        getCounters(resolverName).artifacts++;
+    }
+
+    public synchronized void addArtifactFetch(String resolverName, boolean successful, long bytes) {
+        final Counters counters = getCounters(resolverName);
+        if (successful) {
+            counters.fetchedArtifacts++;
+            counters.bytes += bytes;
+        } else {
+            counters.failedArtifacts++;
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return countersPerResolver.isEmpty();
+    }
+
+    /**
+     * @return a line per resolver summing up its figures, in the order of the resolver names
+     */
+    public synchronized List<String> getSummary() {
+        final List<String> result = new ArrayList<>();
+        for (Map.Entry<String, Counters> entry : countersPerResolver.entrySet()) {
+            final Counters counters = entry.getValue();
+            final long cachedArtifacts = Math.max(0, counters.artifacts - counters.fetchedArtifacts - counters.failedArtifacts);
+            final long[] durations = counters.durations.stream().mapToLong(Long::longValue).sorted().toArray();
+            result.add("Resolver '" + entry.getKey() + "': "
+                    + counters.dependencies + " dependencies (" + counters.cachedDependencies + " cached, " + counters.fetchedDependencies + " fetched, " + counters.notFound + " not found), "
+                    + counters.artifacts + " artifacts (" + cachedArtifacts + " cached, " + counters.fetchedArtifacts + " fetched, " + counters.failedArtifacts + " failed), "
+                    + formatBytes(counters.bytes) + " fetched"
+                    + (durations.length == 0 ? "" : ", resolve time p50 " + percentile(durations, 50) + " ms, p90 " + percentile(durations, 90) + " ms, p99 " + percentile(durations, 99) + " ms"));
+        }
+        return result;
+    }
+
+    /**
+     * @param sortedValues the values, in ascending order
+     * @return the smallest value that at least the given percentage of the values doesn't exceed
+     */
+    static long percentile(long[] sortedValues, int percentage) {
+        if (sortedValues.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percentage / 100.0 * sortedValues.length);
+        return sortedValues[Math.max(0, Math.min(sortedValues.length, rank) - 1)];
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private Counters getCounters(String resolverName) {
+        return countersPerResolver.computeIfAbsent(resolverName == null ? "<unknown>" : resolverName, name -> new Counters());
+    }
+
+    private static class Counters {
+
+        private long dependencies;
+        private long cachedDependencies;
+        private long fetchedDependencies;
+        private long notFound;
+        private long artifacts;
+        private long fetchedArtifacts;
+        private long failedArtifacts;
+        private long bytes;
+        private final List<Long> durations = new ArrayList<>();
+    }
+}
@@ -17,11 +17,11 @@
 package org.clarent.ivyidea.resolve.dependency;
 
 import com.intellij.openapi.roots.OrderRootType;
-import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VfsUtil;
-import com.intellij.util.PathUtil;
 import org.apache.ivy.core.module.descriptor.Artifact;
+import org.clarent.ivyidea.config.model.ArtifactTypeSettings;
 import org.clarent.ivyidea.intellij.model.IntellijModuleWrapper;
+import org.clarent.ivyidea.util.FileStatCache;
 
 import java.io.File;
 import java.util.logging.Logger;
@@ -38,6 +38,7 @@ public abstract class ExternalDependency implements ResolvedDependency {
     private final Artifact artifact;
     private final String configurationName;
     private final File localFile;
+    private volatile Boolean missing;
 
     public ExternalDependency(Artifact artifact, File localFile, final String configurationName) {
         this.artifact = artifact;
@@ -45,6 +46,10 @@ public abstract class ExternalDependency implements ResolvedDependency {
         this.configurationName = configurationName;
     }
 
+    public Artifact getArtifact() {
+        return artifact;
+    }
+
     public File getLocalFile() {
         return localFile;
     }
@@ -67,28 +72,29 @@ public abstract class ExternalDependency implements ResolvedDependency {
             LOGGER.warning("Not registering external " + getTypeName() + " file dependency as the file does not seem to exist: " + artifactPath);
             return;
         }
-        if (intellijModuleWrapper.alreadyHasDependencyOnLibrary(this)) {
-            LOGGER.info("Not re-registering external " + getTypeName() + " file dependency " + artifactPath + " as it is already present.");
-            return;
-        }
         LOGGER.info("Registering external " + getTypeName() + " file dependency: " + artifactPath);
         intellijModuleWrapper.addExternalDependency(this);
     }
 
     public boolean isMissing() {
-        return localFile != null && !new File(localFile.getAbsolutePath()).exists();
-    }
-
-    public boolean isSameDependency(String url) {
-        if (localFile == null) {
-            return false;
+        if (missing == null) {
+            missing = localFile != null && !localFile.getAbsoluteFile().exists();
         }
+        return missing;
+    }
 
-        final String path = PathUtil.toPresentableUrl(url);
-        return FileUtil.filesEqual(localFile, new File(path));
+    /**
+     * Checks whether the file exists through the given cache, which is remembered for later calls to
+     * {@link #isMissing()}.
+     */
+    public boolean isMissing(FileStatCache fileStatCache) {
+        missing = localFile != null && !fileStatCache.exists(localFile);
+        return missing;
     }
 
     public abstract OrderRootType getType();
 
+    public abstract ArtifactTypeSettings.DependencyCategory getCategory();
+
     protected abstract String getTypeName();
 }
@@ -41,18 +41,24 @@ public class ExternalDependencyFactory {
                                                        @NotNull Project project, @NotNull final String configurationName) {
         final ArtifactTypeSettings.DependencyCategory category = determineCategory(project, artifact);
         if (category != null) {
-            switch (category) {
-                case Classes:
-                    return new ExternalJarDependency(artifact, file, configurationName);
-                case Sources:
-                    return new ExternalSourceDependency(artifact, file, configurationName);
-                case Javadoc:
-                    return new ExternalJavaDocDependency(artifact, file, configurationName);
-            }
+            return createExternalDependency(category, artifact, file, configurationName);
         }
         return null;
     }
 
+    @NotNull
+    public ExternalDependency createExternalDependency(@NotNull ArtifactTypeSettings.DependencyCategory category, @NotNull Artifact artifact,
+                                                       @Nullable File file, @NotNull final String configurationName) {
+        switch (category) {
+            case Sources:
+                return new ExternalSourceDependency(artifact, file, configurationName);
+            case Javadoc:
+                return new ExternalJavaDocDependency(artifact, file, configurationName);
+            default:
+                return new ExternalJarDependency(artifact, file, configurationName);
+        }
+    }
+
     @Nullable
     public static ArtifactTypeSettings.DependencyCategory determineCategory(@NotNull Project project, @NotNull Artifact artifact) {
         final ArtifactTypeSettings typeSettings = IvyIdeaConfigHelper.getArtifactTypeSettings(project);
@@ -18,6 +18,7 @@ package org.clarent.ivyidea.resolve.dependency;
 
 import com.intellij.openapi.roots.OrderRootType;
 import org.apache.ivy.core.module.descriptor.Artifact;
+import org.clarent.ivyidea.config.model.ArtifactTypeSettings;
 
 import java.io.File;
 
@@ -39,4 +40,8 @@ public class ExternalJarDependency extends ExternalDependency {
         return OrderRootType.CLASSES;
     }
 
+    public ArtifactTypeSettings.DependencyCategory getCategory() {
+        return ArtifactTypeSettings.DependencyCategory.Classes;
+    }
+
 }
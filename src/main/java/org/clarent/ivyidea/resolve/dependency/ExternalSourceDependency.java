@@ -20,6 +20,7 @@ import com.intellij.openapi.roots.OrderRootType;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.VirtualFileManager;
 import org.apache.ivy.core.module.descriptor.Artifact;
+import org.clarent.ivyidea.config.model.ArtifactTypeSettings;
 
 import java.io.File;
 
@@ -40,4 +41,8 @@ public class ExternalSourceDependency extends ExternalDependency {
     public OrderRootType getType() {
         return OrderRootType.SOURCES;
     }
+
+    public ArtifactTypeSettings.DependencyCategory getCategory() {
+        return ArtifactTypeSettings.DependencyCategory.Sources;
+    }
 }
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve.snapshot;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of resolving one module, in a form that can be written to disk: the external artifacts with their
+ * coordinates, local file, category and configuration, the modules it depends on and the problems that were reported.
+ *
+ * The binary format starts with a magic number and a version; snapshots written in another version are rejected
+ * when reading, so they are simply recreated by the next resolve.
+ */
+public final class ResolveSnapshot {
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x49564944; // "IVID"
+
+    private final String inputFingerprint;
+    private final List<ArtifactEntry> artifacts;
+    private final List<String> moduleDependencies;
+    private final List<ProblemEntry> problems;
+
+    public ResolveSnapshot(@Nullable String inputFingerprint, @NotNull List<ArtifactEntry> artifacts, @NotNull List<String> moduleDependencies, @NotNull List<ProblemEntry> problems) {
+        this.inputFingerprint = inputFingerprint;
+        this.artifacts = Collections.unmodifiableList(new ArrayList<>(artifacts));
+        this.moduleDependencies = Collections.unmodifiableList(new ArrayList<>(moduleDependencies));
+        this.problems = Collections.unmodifiableList(new ArrayList<>(problems));
+    }
+
+    /**
+     * @return the fingerprint of the resolve inputs the snapshot was taken for, null if unknown
+     */
+    @Nullable
+    public String getInputFingerprint() {
+        return inputFingerprint;
+    }
+
+    @NotNull
+    public List<ArtifactEntry> getArtifacts() {
+        return artifacts;
+    }
+
+    /**
+     * @return the names of the modules that were detected as dependencies
+     */
+    @NotNull
+    public List<String> getModuleDependencies() {
+        return moduleDependencies;
+    }
+
+    @NotNull
+    public List<ProblemEntry> getProblems() {
+        return problems;
+    }
+
+    public void write(@NotNull OutputStream out) throws IOException {
+        final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        writeString(data, inputFingerprint);
+        data.writeInt(artifacts.size());
+        for (ArtifactEntry artifact : artifacts) {
+            writeString(data, artifact.category);
+            writeString(data, artifact.configuration);
+            writeString(data, artifact.organisation);
+            writeString(data, artifact.module);
+            writeString(data, artifact.revision);
+            writeString(data, artifact.name);
+            writeString(data, artifact.type);
+            writeString(data, artifact.extension);
+            writeString(data, artifact.path);
+        }
+        data.writeInt(moduleDependencies.size());
+        for (String moduleDependency : moduleDependencies) {
+            writeString(data, moduleDependency);
+        }
+        data.writeInt(problems.size());
+        for (ProblemEntry problem : problems) {
+            writeString(data, problem.targetId);
+            writeString(data, problem.message);
+        }
+        data.flush();
+    }
+
+    /**
+     * @param in the stream to read from
+     * @return the snapshot that was read
+     * @throws IOException if the stream could not be read or does not hold a snapshot in the current format
+     */
+    @NotNull
+    public static ResolveSnapshot read(@NotNull InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not an IvyIDEA resolve snapshot");
+        }
+        final int version = data.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported resolve snapshot version " + version + ", expected " + FORMAT_VERSION);
+        }
+        final String inputFingerprint = readString(data);
+        final int artifactCount = data.readInt();
+        final List<ArtifactEntry> artifacts = new ArrayList<>(artifactCount);
+        for (int i = 0; i < artifactCount; i++) {
+            artifacts.add(new ArtifactEntry(readString(data), readString(data), readString(data), readString(data),
+                    readString(data), readString(data), readString(data), readString(data), readString(data)));
+        }
+        final int moduleDependencyCount = data.readInt();
+        final List<String> moduleDependencies = new ArrayList<>(moduleDependencyCount);
+        for (int i = 0; i < moduleDependencyCount; i++) {
+            moduleDependencies.add(readString(data));
+        }
+        final int problemCount = data.readInt();
+        final List<ProblemEntry> problems = new ArrayList<>(problemCount);
+        for (int i = 0; i < problemCount; i++) {
+            problems.add(new ProblemEntry(readString(data), readString(data)));
+        }
+        return new ResolveSnapshot(inputFingerprint, artifacts, moduleDependencies, problems);
+    }
+
+    private static void writeString(DataOutputStream data, @Nullable String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+    }
+
+    @Nullable
+    private static String readString(DataInputStream data) throws IOException {
+        final int length = data.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * An artifact that was added to one of the IvyIDEA libraries of the module.
+     */
+    public static final class ArtifactEntry {
+
+        private final String category;
+        private final String configuration;
+        private final String organisation;
+        private final String module;
+        private final String revision;
+        private final String name;
+        private final String type;
+        private final String extension;
+        private final String path;
+
+        public ArtifactEntry(String category, String configuration, String organisation, String module, String revision,
+                             String name, String type, String extension, String path) {
+            this.category = category;
+            this.configuration = configuration;
+            this.organisation = organisation;
+            this.module = module;
+            this.revision = revision;
+            this.name = name;
+            this.type = type;
+            this.extension = extension;
+            this.path = path;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public String getConfiguration() {
+            return configuration;
+        }
+
+        public String getOrganisation() {
+            return organisation;
+        }
+
+        public String getModule() {
+            return module;
+        }
+
+        public String getRevision() {
+            return revision;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    /**
+     * A problem that was reported while resolving.
+     */
+    public static final class ProblemEntry {
+
+        private final String targetId;
+        private final String message;
+
+        public ProblemEntry(String targetId, String message) {
+            this.targetId = targetId;
+            this.message = message;
+        }
+
+        public String getTargetId() {
+            return targetId;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve.snapshot;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.project.Project;
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.clarent.ivyidea.config.model.ArtifactTypeSettings;
+import org.clarent.ivyidea.resolve.dependency.ExternalDependency;
+import org.clarent.ivyidea.resolve.dependency.ExternalDependencyFactory;
+import org.clarent.ivyidea.resolve.dependency.InternalDependency;
+import org.clarent.ivyidea.resolve.problem.ResolveProblem;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a {@link ResolveSnapshot} per module in a directory per project under ivyidea/snapshots in the system
+ * directory of the IDE. The snapshots hold absolute paths into the local ivy cache, so they are kept out of the
+ * project, and out of version control, whatever its format.
+ */
+public class ResolveSnapshotStore {
+
+    private static final Logger LOGGER = Logger.getLogger(ResolveSnapshotStore.class.getName());
+
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+
+    private final File directory;
+
+    public static ResolveSnapshotStore forProject(@NotNull Project project) {
+        final File snapshotsDirectory = new File(PathManager.getSystemPath(), "ivyidea" + File.separator + "snapshots");
+        return new ResolveSnapshotStore(new File(snapshotsDirectory, project.getLocationHash()));
+    }
+
+    public ResolveSnapshotStore(@NotNull File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Stores the outcome of a resolve, replacing the previous snapshot of the module.
+     */
+    public void save(@NotNull Module module, @Nullable String inputFingerprint, @NotNull List<ExternalDependency> externalDependencies,
+                     @NotNull List<InternalDependency> internalDependencies, @NotNull List<ResolveProblem> problems) {
+        final List<ResolveSnapshot.ArtifactEntry> artifacts = new ArrayList<>(externalDependencies.size());
+        for (ExternalDependency dependency : externalDependencies) {
+            final Artifact artifact = dependency.getArtifact();
+            final ModuleRevisionId mrid = artifact.getModuleRevisionId();
+            artifacts.add(new ResolveSnapshot.ArtifactEntry(dependency.getCategory().name(), dependency.getConfigurationName(),
+                    mrid.getOrganisation(), mrid.getName(), mrid.getRevision(),
+                    artifact.getName(), artifact.getType(), artifact.getExt(),
+                    dependency.getLocalFile() == null ? null : dependency.getLocalFile().getAbsolutePath()));
+        }
+        final List<String> moduleDependencies = new ArrayList<>(internalDependencies.size());
+        for (InternalDependency dependency : internalDependencies) {
+            moduleDependencies.add(dependency.getModuleName());
+        }
+        final List<ResolveSnapshot.ProblemEntry> problemEntries = new ArrayList<>(problems.size());
+        for (ResolveProblem problem : problems) {
+            problemEntries.add(new ResolveSnapshot.ProblemEntry(problem.getTargetId(), problem.getMessage()));
+        }
+
+        try {
+            write(getSnapshotFile(module), new ResolveSnapshot(inputFingerprint, artifacts, moduleDependencies, problemEntries));
+        } catch (IOException e) {
+            LOGGER.warning("Could not store the resolve snapshot of module " + module.getName() + ": " + e);
+        }
+    }
+
+    /**
+     * @return the last stored snapshot of the module, null if there is none or it can't be read
+     */
+    @Nullable
+    public ResolveSnapshot load(@NotNull Module module) {
+        final File snapshotFile = getSnapshotFile(module);
+        if (!snapshotFile.isFile()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(snapshotFile)) {
+            return ResolveSnapshot.read(in);
+        } catch (IOException e) {
+            LOGGER.info("Ignoring resolve snapshot " + snapshotFile + ": " + e);
+            return null;
+        }
+    }
+
+    @NotNull
+    public static List<ExternalDependency> getExternalDependencies(@NotNull ResolveSnapshot snapshot) {
+        final List<ExternalDependency> result = new ArrayList<>(snapshot.getArtifacts().size());
+        for (ResolveSnapshot.ArtifactEntry entry : snapshot.getArtifacts()) {
+            final ArtifactTypeSettings.DependencyCategory category;
+            try {
+                category = ArtifactTypeSettings.DependencyCategory.valueOf(entry.getCategory());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                continue;
+            }
+            final ModuleRevisionId mrid = ModuleRevisionId.newInstance(entry.getOrganisation(), entry.getModule(), entry.getRevision());
+            final Artifact artifact = new DefaultArtifact(mrid, null, entry.getName(), entry.getType(), entry.getExtension());
+            final File localFile = entry.getPath() == null ? null : new File(entry.getPath());
+            result.add(ExternalDependencyFactory.getInstance().createExternalDependency(category, artifact, localFile, entry.getConfiguration()));
+        }
+        return result;
+    }
+
+    @NotNull
+    public static List<InternalDependency> getInternalDependencies(@NotNull ResolveSnapshot snapshot, @NotNull Project project) {
+        final ModuleManager moduleManager = ModuleManager.getInstance(project);
+        final List<InternalDependency> result = new ArrayList<>(snapshot.getModuleDependencies().size());
+        for (String moduleName : snapshot.getModuleDependencies()) {
+            final Module module = moduleManager.findModuleByName(moduleName);
+            if (module != null) {
+                result.add(new InternalDependency(module));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the problems of the original resolve, plus the files and modules that have disappeared since
+     */
+    @NotNull
+    public static List<ResolveProblem> getProblems(@NotNull ResolveSnapshot snapshot, @NotNull Project project) {
+        final List<ResolveProblem> result = new ArrayList<>();
+        for (ResolveSnapshot.ProblemEntry problem : snapshot.getProblems()) {
+            result.add(new ResolveProblem(problem.getTargetId(), problem.getMessage()));
+        }
+        for (ResolveSnapshot.ArtifactEntry entry : snapshot.getArtifacts()) {
+            if (entry.getPath() != null && !new File(entry.getPath()).exists()) {
+                final String targetId = ModuleRevisionId.newInstance(entry.getOrganisation(), entry.getModule(), entry.getRevision()).toString();
+                result.add(new ResolveProblem(targetId, "File not found: " + entry.getPath()));
+            }
+        }
+        final ModuleManager moduleManager = ModuleManager.getInstance(project);
+        for (String moduleName : snapshot.getModuleDependencies()) {
+            if (moduleManager.findModuleByName(moduleName) == null) {
+                result.add(new ResolveProblem(moduleName, "Module not found in this project"));
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private File getSnapshotFile(@NotNull Module module) {
+        final String moduleName = module.getName();
+        // keep the file name safe on every file system, the hash keeps sanitized names apart
+        final String fileName = moduleName.replaceAll("[^\\w.-]", "_") + '-' + Integer.toHexString(moduleName.hashCode());
+        return new File(directory, fileName + SNAPSHOT_EXTENSION);
+    }
+
+    private void write(@NotNull File snapshotFile, @NotNull ResolveSnapshot snapshot) throws IOException {
+        if (!directory.isDirectory()) {
+            Files.createDirectories(directory.toPath());
+        }
+        final File tempFile = File.createTempFile("snapshot", ".tmp", directory);
+        try {
+            try (OutputStream out = new FileOutputStream(tempFile)) {
+                snapshot.write(out);
+            }
+            try {
+                Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.util;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers which files exist, so that every file is only looked up once during a resolve. Files can be looked up
+ * one by one, or many at once on the threads of a lookup executor, which pays off when a single lookup is slow, as on
+ * network drives. The executor is shared by all lookups of a resolve, see {@link #newLookupExecutor()}, and is owned
+ * by whoever created it.
+ */
+public class FileStatCache {
+
+    private static final int THREAD_COUNT = 8;
+
+    private final Map<File, Boolean> existingFiles = new ConcurrentHashMap<>();
+    private final ExecutorService lookupExecutor;
+
+    /**
+     * Creates a cache that looks up all files one by one.
+     */
+    public FileStatCache() {
+        this(null);
+    }
+
+    /**
+     * @param lookupExecutor the executor on which {@link #checkAll} looks up files in parallel, null to look them up
+     *                       one by one
+     */
+    public FileStatCache(ExecutorService lookupExecutor) {
+        this.lookupExecutor = lookupExecutor;
+    }
+
+    /**
+     * @return a bounded executor for looking up files, with daemon threads that are only started when needed; to be
+     *         shut down by the caller when its lookups are done
+     */
+    public static ExecutorService newLookupExecutor() {
+        return Executors.newFixedThreadPool(THREAD_COUNT, new StatThreadFactory());
+    }
+
+    public boolean exists(File file) {
+        return existingFiles.computeIfAbsent(file.getAbsoluteFile(), FileStatCache::lookUp);
+    }
+
+    /**
+     * Looks up all given files that haven't been looked up yet, in parallel if the cache has a lookup executor.
+     */
+    public void checkAll(Collection<File> files) {
+        final Set<File> filesToCheck = new LinkedHashSet<>();
+        for (File file : files) {
+            final File absoluteFile = file.getAbsoluteFile();
+            if (!existingFiles.containsKey(absoluteFile)) {
+                filesToCheck.add(absoluteFile);
+            }
+        }
+        if (lookupExecutor == null || filesToCheck.size() <= 1) {
+            filesToCheck.forEach(this::exists);
+            return;
+        }
+
+        try {
+            final List<Callable<Boolean>> lookups = new ArrayList<>(filesToCheck.size());
+            for (File file : filesToCheck) {
+                lookups.add(() -> exists(file));
+            }
+            for (Future<Boolean> lookup : lookupExecutor.invokeAll(lookups)) {
+                lookup.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            // the remaining files are looked up one by one when they are needed
+        }
+    }
+
+    private static boolean lookUp(File file) {
+        try {
+            return Files.exists(file.toPath());
+        } catch (InvalidPathException e) {
+            return file.exists();
+        }
+    }
+
+    private static class StatThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "IvyIDEA File Check " + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij.model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LibraryRootDiffTest {
+
+    @Test
+    public void testUrlsAndFilesHaveTheSameKey() {
+        final LibraryRootDiff diff = new LibraryRootDiff(true);
+
+        assertThat(diff.getKey("jar:///cache/org/lib-1.0.jar!/")).isEqualTo(diff.getKey(new File("/cache/org/lib-1.0.jar")));
+        assertThat(diff.getKey("file:///cache/org/classes/")).isEqualTo(diff.getKey(new File("/cache/org/classes")));
+        assertThat(diff.getKey(new File("/settings/../cache/./lib.jar"))).isEqualTo("/cache/lib.jar");
+    }
+
+    @Test
+    public void testCaseInsensitiveFileSystem() {
+        assertThat(new LibraryRootDiff(false).getKey("jar:///Cache/Lib.jar!/")).isEqualTo("/cache/lib.jar");
+        assertThat(new LibraryRootDiff(true).getKey("jar:///Cache/Lib.jar!/")).isEqualTo("/Cache/Lib.jar");
+    }
+
+    @Test
+    public void testDiff() {
+        final LibraryRootDiff diff = new LibraryRootDiff(true);
+        final List<String> existingUrls = Arrays.asList("jar:///cache/a.jar!/", "jar:///cache/b.jar!/");
+        final List<File> wantedFiles = Arrays.asList(new File("/cache/b.jar"), new File("/cache/c.jar"), new File("/cache/c.jar"));
+
+        assertThat(diff.getRootsToRemove(existingUrls, wantedFiles)).containsExactly("jar:///cache/a.jar!/");
+        assertThat(diff.getFilesToAdd(existingUrls, wantedFiles)).containsExactly(new File("/cache/c.jar"));
+    }
+}
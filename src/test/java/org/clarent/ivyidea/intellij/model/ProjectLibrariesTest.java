@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.intellij.model;
+
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.clarent.ivyidea.resolve.dependency.ExternalDependency;
+import org.clarent.ivyidea.resolve.dependency.ExternalJarDependency;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProjectLibrariesTest {
+
+    private static final ModuleRevisionId LIB = ModuleRevisionId.newInstance("org", "lib", "1.0");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameFilesShareALibrary() throws IOException {
+        final Set<String> names = ProjectLibraries.getLibraryNames(Arrays.asList(jar("lib"), jar("lib-extra")));
+
+        assertThat(names).hasSize(1);
+        assertThat(names.iterator().next()).startsWith("IvyIDEA: org:lib:1.0 ");
+        assertThat(ProjectLibraries.getLibraryNames(Arrays.asList(jar("lib-extra"), jar("lib")))).isEqualTo(names);
+    }
+
+    @Test
+    public void testOtherFilesOfTheSameRevisionGetAnotherLibrary() throws IOException {
+        final Set<String> both = ProjectLibraries.getLibraryNames(Arrays.asList(jar("lib"), jar("lib-extra")));
+        final Set<String> one = ProjectLibraries.getLibraryNames(Collections.singletonList(jar("lib")));
+
+        assertThat(one).hasSize(1).doesNotContainAnyElementsOf(both);
+    }
+
+    @Test
+    public void testMissingFilesAreLeftOut() throws IOException {
+        final ExternalDependency missing = new ExternalJarDependency(artifact("missing"), new File(folder.getRoot(), "missing.jar"), "default");
+
+        assertThat(ProjectLibraries.getLibraryNames(Collections.singletonList(missing))).isEmpty();
+        assertThat(ProjectLibraries.getLibraryNames(Arrays.asList(jar("lib"), missing)))
+                .isEqualTo(ProjectLibraries.getLibraryNames(Collections.singletonList(jar("lib"))));
+    }
+
+    private ExternalDependency jar(String name) throws IOException {
+        final File file = new File(folder.getRoot(), name + ".jar");
+        if (!file.exists()) {
+            assertThat(file.createNewFile()).isTrue();
+        }
+        return new ExternalJarDependency(artifact(name), file, "default");
+    }
+
+    private static DefaultArtifact artifact(String name) {
+        return new DefaultArtifact(LIB, null, name, "jar", "jar");
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import org.apache.ivy.core.module.id.ModuleId;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IvyModuleInfoTest {
+
+    @Test
+    public void testReadsTheModuleId() {
+        final IvyModuleInfo info = read("<?xml version=\"1.0\"?>\n"
+                + "<ivy-module version=\"2.0\">\n"
+                + "    <info organisation=\"org.example\" module=\"app\" revision=\"1.0\">\n"
+                + "        <description>The <b>app</b></description>\n"
+                + "    </info>\n"
+                + "    <configurations>\n"
+                + "        <conf name=\"default\"/>\n"
+                + "    </configurations>\n"
+                + "    <dependencies>\n"
+                + "        <dependency org=\"org.example\" name=\"core\" rev=\"1.0\"/>\n"
+                + "    </dependencies>\n"
+                + "</ivy-module>\n");
+
+        assertThat(info).isNotNull();
+        assertThat(info.getModuleId()).isEqualTo(ModuleId.newInstance("org.example", "app"));
+        assertThat(info.isExtendsParent()).isFalse();
+        assertThat(info.isComplete()).isTrue();
+    }
+
+    @Test
+    public void testReadsTheRevisionConfigurationsAndDependencies() {
+        final IvyModuleInfo info = read("<ivy-module version=\"2.0\">"
+                + "<info organisation=\"org.example\" module=\"app\" revision=\"1.0\"/>"
+                + "<configurations defaultconfmapping=\"*->default\">"
+                + "<conf name=\"compile\"/><conf name=\"test\" extends=\"compile\"><!-- private --></conf>"
+                + "</configurations>"
+                + "<publications><artifact name=\"app\"/></publications>"
+                + "<dependencies>"
+                + "<dependency org=\"org.other\" name=\"lib\" rev=\"2.0\" conf=\"compile\"><artifact name=\"lib-core\"/></dependency>"
+                + "<dependency name=\"core\" rev=\"1.0\"/>"
+                + "<exclude org=\"org.unwanted\"/>"
+                + "</dependencies>"
+                + "</ivy-module>");
+
+        assertThat(info).isNotNull();
+        assertThat(info.getRevision()).isEqualTo("1.0");
+        assertThat(info.getConfigurations()).containsExactly("compile", "test");
+        assertThat(info.getDependencies()).containsExactly(ModuleId.newInstance("org.other", "lib"), ModuleId.newInstance("org.example", "core"));
+    }
+
+    @Test
+    public void testModulesWithoutConfigurationsOrDependencies() {
+        final IvyModuleInfo info = read("<ivy-module version=\"2.0\"><info module=\"app\"/></ivy-module>");
+
+        assertThat(info).isNotNull();
+        assertThat(info.getRevision()).isNull();
+        assertThat(info.getConfigurations()).isEmpty();
+        // the organisation of the dependency isn't known without the one of the module
+        assertThat(read("<ivy-module version=\"2.0\"><info module=\"app\"/>"
+                + "<dependencies><dependency name=\"core\"/></dependencies></ivy-module>").getDependencies()).isEmpty();
+    }
+
+    @Test
+    public void testOtherXmlFilesAreNotRead() {
+        assertThat(read("<project name=\"build\"/>")).isNull();
+        assertThat(read("<ivy-module><info")).isNull();
+    }
+
+    @Test
+    public void testIdsWithVariablesAreIncomplete() {
+        final IvyModuleInfo info = read("<ivy-module version=\"2.0\">"
+                + "<info organisation=\"${org}\" module=\"app\"/>"
+                + "</ivy-module>");
+
+        assertThat(info).isNotNull();
+        assertThat(info.isComplete()).isFalse();
+    }
+
+    @Test
+    public void testExtendingModulesAreIncomplete() {
+        final IvyModuleInfo info = read("<ivy-module version=\"2.0\">"
+                + "<info module=\"app\"><extends organisation=\"org.example\" module=\"parent\" revision=\"1.0\"/></info>"
+                + "</ivy-module>");
+
+        assertThat(info).isNotNull();
+        assertThat(info.isExtendsParent()).isTrue();
+        assertThat(info.isComplete()).isFalse();
+    }
+
+    private static IvyModuleInfo read(String content) {
+        return IvyModuleInfo.read(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
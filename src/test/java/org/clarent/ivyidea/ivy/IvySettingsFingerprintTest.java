@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IvySettingsFingerprintTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameSettingsGiveEqualFingerprints() {
+        final IvySettingsFingerprint first = new IvySettingsFingerprint("ivysettings.xml", properties("a", "1", "b", "2"), new File("module"));
+        final IvySettingsFingerprint second = new IvySettingsFingerprint("ivysettings.xml", properties("b", "2", "a", "1"), new File("module"));
+        assertThat(first).isEqualTo(second);
+        assertThat(first.hashCode()).isEqualTo(second.hashCode());
+    }
+
+    @Test
+    public void testDifferentPropertyValueGivesDifferentFingerprint() {
+        final IvySettingsFingerprint first = new IvySettingsFingerprint("ivysettings.xml", properties("a", "1"), new File("module"));
+        final IvySettingsFingerprint second = new IvySettingsFingerprint("ivysettings.xml", properties("a", "2"), new File("module"));
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    @Test
+    public void testModulesWithTheSameSettingsShareOneEngine() {
+        final IvySettingsFingerprint first = IvySettingsFingerprint.forModule("ivysettings.xml", properties("a", "1"), new File("module1"));
+        final IvySettingsFingerprint second = IvySettingsFingerprint.forModule("ivysettings.xml", properties("a", "1"), new File("module2"));
+        assertThat(first).isEqualTo(second);
+        assertThat(first.getBaseDir()).isNull();
+    }
+
+    @Test
+    public void testPropertiesUsingTheBaseDirKeepModulesApart() {
+        final IvySettingsFingerprint first = IvySettingsFingerprint.forModule("ivysettings.xml", properties("lib", "${basedir}/lib"), new File("module1"));
+        final IvySettingsFingerprint second = IvySettingsFingerprint.forModule("ivysettings.xml", properties("lib", "${basedir}/lib"), new File("module2"));
+        assertThat(first).isNotEqualTo(second);
+        assertThat(first).isEqualTo(IvySettingsFingerprint.forModule("ivysettings.xml", properties("lib", "${basedir}/lib"), new File("module1")));
+    }
+
+    @Test
+    public void testSettingsUsingTheBaseDirAreDetectedWhileLoading() throws Exception {
+        assertThat(load("<ivysettings><resolvers><filesystem name=\"local\">"
+                + "<artifact pattern=\"${ivy.settings.dir}/repo/[artifact].[ext]\"/>"
+                + "</filesystem></resolvers></ivysettings>").isBaseDirUsed()).isFalse();
+        assertThat(load("<ivysettings><resolvers><filesystem name=\"local\">"
+                + "<artifact pattern=\"${basedir}/lib/[artifact].[ext]\"/>"
+                + "</filesystem></resolvers></ivysettings>").isBaseDirUsed()).isTrue();
+    }
+
+    @Test
+    public void testDefaultSettingsDontUseTheBaseDir() throws Exception {
+        final TrackingIvySettings ivySettings = new TrackingIvySettings();
+        ivySettings.setBaseDir(folder.getRoot());
+        ivySettings.loadDefault();
+        assertThat(ivySettings.isBaseDirUsed()).isFalse();
+    }
+
+    @Test
+    public void testDefaultSettingsWithoutBaseDir() {
+        final IvySettingsFingerprint first = new IvySettingsFingerprint(null, new Properties(), null);
+        final IvySettingsFingerprint second = new IvySettingsFingerprint(null, new Properties(), null);
+        assertThat(first).isEqualTo(second);
+        assertThat(first.getSettingsFile()).isNull();
+    }
+
+    @Test
+    public void testPropertiesAreCopied() {
+        final Properties properties = properties("a", "1");
+        final IvySettingsFingerprint fingerprint = new IvySettingsFingerprint(null, properties, null);
+        properties.setProperty("a", "2");
+        assertThat(fingerprint.getProperties().getProperty("a")).isEqualTo("1");
+    }
+
+    private TrackingIvySettings load(String content) throws Exception {
+        final File settings = folder.newFile();
+        Files.write(settings.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        final TrackingIvySettings ivySettings = new TrackingIvySettings();
+        ivySettings.setBaseDir(folder.getRoot());
+        ivySettings.load(settings);
+        return ivySettings;
+    }
+
+    private static Properties properties(String... keysAndValues) {
+        final Properties result = new Properties();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            result.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return result;
+    }
+}
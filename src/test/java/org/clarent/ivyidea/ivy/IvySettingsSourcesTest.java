@@ -0,0 +1,181 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IvySettingsSourcesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private volatile String remoteContent = "<ivysettings/>";
+    private volatile String remoteETag = "\"1\"";
+    private volatile boolean available = true;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger notModifiedCount = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            final String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (!available) {
+                exchange.sendResponseHeaders(503, -1);
+            } else if (remoteETag.equals(ifNoneMatch)) {
+                notModifiedCount.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                final byte[] body = remoteContent.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("ETag", remoteETag);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testIncludedAndPropertiesFilesAreRecorded() throws Exception {
+        final File properties = write("settings.properties", "repo.dir=repo");
+        final File included = write("included.xml", "<ivysettings><resolvers><filesystem name=\"local\"/></resolvers></ivysettings>");
+        final File settings = write("ivysettings.xml", "<ivysettings>"
+                + "<properties file=\"${ivy.settings.dir}/settings.properties\"/>"
+                + "<include file=\"${ivy.settings.dir}/included.xml\"/>"
+                + "</ivysettings>");
+
+        final TrackingIvySettings ivySettings = new TrackingIvySettings();
+        ivySettings.load(settings);
+
+        assertThat(ivySettings.getSources().getFiles()).contains(settings.getAbsoluteFile(), included.getAbsoluteFile(), properties.getAbsoluteFile());
+        assertThat(ivySettings.getSources().isUpToDate()).isTrue();
+    }
+
+    @Test
+    public void testChangedIncludedFileIsDetected() throws Exception {
+        final File included = write("included.xml", "<ivysettings/>");
+        final File settings = write("ivysettings.xml", "<ivysettings><include file=\"${ivy.settings.dir}/included.xml\"/></ivysettings>");
+
+        final TrackingIvySettings ivySettings = new TrackingIvySettings();
+        ivySettings.load(settings);
+        assertThat(ivySettings.getSources().isUpToDate()).isTrue();
+
+        Files.write(included.toPath(), "<ivysettings><resolvers/></ivysettings>".getBytes(StandardCharsets.UTF_8));
+        included.setLastModified(included.lastModified() + 2000);
+        assertThat(ivySettings.getSources().isUpToDate()).isFalse();
+    }
+
+    @Test
+    public void testUnchangedUrlIsValidatedWithConditionalGet() throws Exception {
+        final IvySettingsSources sources = new IvySettingsSources();
+        sources.addUrl(remoteSettingsUrl());
+
+        assertThat(sources.getUrls()).containsExactly(remoteSettingsUrl());
+        assertThat(sources.isUpToDate()).isTrue();
+        assertThat(notModifiedCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testChangedUrlIsDetected() throws Exception {
+        final IvySettingsSources sources = new IvySettingsSources();
+        sources.addUrl(remoteSettingsUrl());
+
+        remoteContent = "<ivysettings><resolvers/></ivysettings>";
+        remoteETag = "\"2\"";
+        assertThat(sources.isUpToDate()).isFalse();
+    }
+
+    @Test
+    public void testNewETagWithSameContentIsNotAChange() throws Exception {
+        final IvySettingsSources sources = new IvySettingsSources();
+        sources.addUrl(remoteSettingsUrl());
+
+        remoteETag = "\"2\"";
+        assertThat(sources.isUpToDate()).isTrue();
+        assertThat(sources.isUpToDate()).isTrue();
+        assertThat(notModifiedCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRemotePropertiesAreLoadedFromTheRecordedResponse() throws Exception {
+        remoteContent = "repo.url=http://repo.example.org";
+        final URL url = remoteUrl("settings.properties");
+
+        final TrackingIvySettings ivySettings = new TrackingIvySettings();
+        ivySettings.loadProperties(url);
+
+        assertThat(ivySettings.getVariable("repo.url")).isEqualTo("http://repo.example.org");
+        assertThat(ivySettings.getSources().getUrls()).containsExactly(url);
+        assertThat(requestCount.get()).isEqualTo(1);
+        assertThat(ivySettings.getSources().isUpToDate()).isTrue();
+        assertThat(notModifiedCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUrlThatCouldNotBeRecordedIsRecordedAtTheFirstCheck() throws Exception {
+        available = false;
+        final IvySettingsSources sources = new IvySettingsSources();
+        sources.addUrl(remoteSettingsUrl());
+        assertThat(sources.isUpToDate()).isTrue();
+
+        available = true;
+        assertThat(sources.isUpToDate()).isTrue();
+        assertThat(sources.isUpToDate()).isTrue();
+        assertThat(notModifiedCount.get()).isEqualTo(1);
+    }
+
+    private URL remoteSettingsUrl() throws IOException {
+        return remoteUrl("ivysettings.xml");
+    }
+
+    private URL remoteUrl(String path) throws IOException {
+        return new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/" + path);
+    }
+
+    private File write(String name, String content) throws IOException {
+        final File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.ivy;
+
+import org.apache.ivy.core.module.descriptor.DefaultExtendsDescriptor;
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ModuleDescriptorCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger parseCount = new AtomicInteger();
+    private final ModuleDescriptorCache.Parser parser = (file, validate) -> {
+        parseCount.incrementAndGet();
+        return DefaultModuleDescriptor.newBasicInstance(ModuleRevisionId.newInstance("org", file.getParentFile().getName(), "1.0"), null);
+    };
+
+    @Test
+    public void testParsesAFileOnlyOnceForTheSameSettings() throws Exception {
+        final ModuleDescriptorCache cache = new ModuleDescriptorCache();
+        final File ivyFile = createIvyFile("module", 100);
+
+        final ModuleDescriptor first = cache.get(ivyFile, "settings", false, parser);
+        final ModuleDescriptor second = cache.get(new File(ivyFile.getParentFile(), "../module/ivy.xml"), "settings", false, parser);
+
+        assertThat(second).isSameAs(first);
+        assertThat(parseCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testParsesAgainForOtherSettings() throws Exception {
+        final ModuleDescriptorCache cache = new ModuleDescriptorCache();
+        final File ivyFile = createIvyFile("module", 100);
+
+        cache.get(ivyFile, "settings", false, parser);
+        cache.get(ivyFile, "other settings", false, parser);
+
+        assertThat(parseCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testParsesAgainWhenTheFileChanged() throws Exception {
+        final ModuleDescriptorCache cache = new ModuleDescriptorCache();
+        final File ivyFile = createIvyFile("module", 100);
+
+        cache.get(ivyFile, "settings", false, parser);
+        Files.write(ivyFile.toPath(), new byte[120]);
+        cache.get(ivyFile, "settings", false, parser);
+
+        assertThat(parseCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testValidatedDescriptorsAreUsedWithoutValidationButNotTheOtherWayAround() throws Exception {
+        final ModuleDescriptorCache cache = new ModuleDescriptorCache();
+        final File ivyFile = createIvyFile("module", 100);
+
+        cache.get(ivyFile, "settings", false, parser);
+        cache.get(ivyFile, "settings", true, parser);
+        cache.get(ivyFile, "settings", false, parser);
+
+        assertThat(parseCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testInvalidateDropsTheDescriptorsOfTheGivenSettings() throws Exception {
+        final ModuleDescriptorCache cache = new ModuleDescriptorCache();
+        final File ivyFile = createIvyFile("module", 100);
+        cache.get(ivyFile, "settings", false, parser);
+        cache.get(ivyFile, "other settings", false, parser);
+
+        cache.invalidate("settings");
+
+        assertThat(cache.size()).isEqualTo(1);
+        cache.get(ivyFile, "other settings", false, parser);
+        assertThat(parseCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testEvictsTheLeastRecentlyUsedDescriptors() throws Exception {
+        final ModuleDescriptorCache cache = new ModuleDescriptorCache(2, Long.MAX_VALUE);
+        final File first = createIvyFile("first", 100);
+        final File second = createIvyFile("second", 100);
+        final File third = createIvyFile("third", 100);
+
+        cache.get(first, "settings", false, parser);
+        cache.get(second, "settings", false, parser);
+        cache.get(first, "settings", false, parser);
+        cache.get(third, "settings", false, parser);
+        assertThat(parseCount.get()).isEqualTo(3);
+
+        cache.get(first, "settings", false, parser);
+        assertThat(parseCount.get()).isEqualTo(3);
+        cache.get(second, "settings", false, parser);
+        assertThat(parseCount.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void testKeepsTheSizeOfTheParsedFilesBelowTheBound() throws Exception {
+        final ModuleDescriptorCache cache = new ModuleDescriptorCache(100, 250);
+
+        cache.get(createIvyFile("first", 100), "settings", false, parser);
+        cache.get(createIvyFile("second", 100), "settings", false, parser);
+        assertThat(cache.size()).isEqualTo(2);
+
+        cache.get(createIvyFile("third", 100), "settings", false, parser);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDescriptorsExtendingAParentAreNotCached() throws Exception {
+        final ModuleDescriptorCache cache = new ModuleDescriptorCache();
+        final File ivyFile = createIvyFile("module", 100);
+        final ModuleDescriptorCache.Parser extendingParser = (file, validate) -> {
+            final DefaultModuleDescriptor descriptor = (DefaultModuleDescriptor) parser.parse(file, validate);
+            descriptor.addInheritedDescriptor(new DefaultExtendsDescriptor(
+                    DefaultModuleDescriptor.newBasicInstance(ModuleRevisionId.newInstance("org", "parent", "1.0"), null), "../parent/ivy.xml", new String[]{"all"}));
+            return descriptor;
+        };
+
+        cache.get(ivyFile, "settings", false, extendingParser);
+        cache.get(ivyFile, "settings", false, extendingParser);
+
+        assertThat(parseCount.get()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFilesIncludingConfigurationsAreNotCached() throws Exception {
+        final ModuleDescriptorCache cache = new ModuleDescriptorCache();
+        final File ivyFile = new File(folder.newFolder("module"), "ivy.xml");
+        Files.write(ivyFile.toPath(), ("<ivy-module version=\"2.0\"><info organisation=\"org\" module=\"module\"/>"
+                + "<configurations><include file=\"../configurations.xml\"/></configurations></ivy-module>").getBytes(StandardCharsets.UTF_8));
+
+        cache.get(ivyFile, "settings", false, parser);
+        cache.get(ivyFile, "settings", false, parser);
+
+        assertThat(parseCount.get()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    private File createIvyFile(String module, int size) throws IOException {
+        final File ivyFile = new File(folder.newFolder(module), "ivy.xml");
+        Files.write(ivyFile.toPath(), new String(new char[size]).replace('\0', ' ').getBytes(StandardCharsets.UTF_8));
+        return ivyFile;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.logging;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MessageBufferTest {
+
+    @Test
+    public void testConsecutiveMessagesOfTheSameTypeAreJoined() {
+        final MessageBuffer<String> buffer = new MessageBuffer<>(10);
+        assertThat(buffer.add("a\n", "info")).isTrue();
+        assertThat(buffer.add("b\n", "info")).isFalse();
+        buffer.add("c\n", "error");
+        buffer.add(".", "info");
+
+        final MessageBuffer.Batch<String> batch = buffer.drain();
+        assertThat(batch.getDroppedCount()).isZero();
+        assertThat(batch.getMessages()).extracting(MessageBuffer.Message::getText).containsExactly("a\nb\n", "c\n", ".");
+        assertThat(batch.getMessages()).extracting(MessageBuffer.Message::getType).containsExactly("info", "error", "info");
+
+        assertThat(buffer.add("d\n", "info")).isTrue();
+    }
+
+    @Test
+    public void testOldestMessagesAreDroppedOnOverflow() {
+        final MessageBuffer<String> buffer = new MessageBuffer<>(2);
+        buffer.add("a", "info");
+        buffer.add("b", "info");
+        buffer.add("c", "info");
+        buffer.add("d", "info");
+
+        final MessageBuffer.Batch<String> batch = buffer.drain();
+        assertThat(batch.getDroppedCount()).isEqualTo(2);
+        assertThat(batch.getMessages()).extracting(MessageBuffer.Message::getText).containsExactly("cd");
+        assertThat(buffer.drain().getDroppedCount()).isZero();
+    }
+}
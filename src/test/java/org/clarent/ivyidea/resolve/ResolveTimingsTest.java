@@ -0,0 +1,50 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResolveTimingsTest {
+
+    @Test
+    public void testPhasesAreAddedUpPerModule() {
+        final ResolveTimings timings = new ResolveTimings();
+        timings.addNanos("core", ResolveTimings.Phase.RESOLVE, TimeUnit.MILLISECONDS.toNanos(20));
+        timings.addNanos("core", ResolveTimings.Phase.RESOLVE, TimeUnit.MILLISECONDS.toNanos(5));
+        timings.addNanos("core", ResolveTimings.Phase.EXTRACT, TimeUnit.MILLISECONDS.toNanos(3));
+        timings.addNanos("web", ResolveTimings.Phase.PARSE, TimeUnit.MILLISECONDS.toNanos(7));
+
+        assertThat(timings.getModuleNames()).containsExactly("core", "web");
+        assertThat(timings.getMillis("core", ResolveTimings.Phase.RESOLVE)).isEqualTo(25);
+        assertThat(timings.getMillis("core", ResolveTimings.Phase.PARSE)).isZero();
+        assertThat(timings.getTotalMillis("core")).isEqualTo(28);
+        assertThat(timings.getTotalMillis("unknown")).isZero();
+    }
+
+    @Test
+    public void testJson() {
+        final ResolveTimings timings = new ResolveTimings();
+        assertThat(timings.toJson()).contains("\"modules\": []");
+
+        timings.addNanos("my \"module\"", ResolveTimings.Phase.DOWNLOAD, TimeUnit.MILLISECONDS.toNanos(12));
+        assertThat(timings.toJson()).contains("{\"module\": \"my \\\"module\\\"\", \"settings\": 0, \"parse\": 0, \"resolve\": 0, \"extract\": 0, \"download\": 12, \"commit\": 0, \"total\": 12}");
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResolverMetricsTest {
+
+    @Test
+    public void testPercentile() {
+        final long[] values = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertThat(ResolverMetrics.percentile(values, 50)).isEqualTo(5);
+        assertThat(ResolverMetrics.percentile(values, 90)).isEqualTo(9);
+        assertThat(ResolverMetrics.percentile(values, 99)).isEqualTo(10);
+        assertThat(ResolverMetrics.percentile(new long[]{42}, 50)).isEqualTo(42);
+        assertThat(ResolverMetrics.percentile(new long[0], 50)).isZero();
+    }
+
+    @Test
+    public void testSummary() {
+        final ResolverMetrics metrics = new ResolverMetrics();
+        assertThat(metrics.isEmpty()).isTrue();
+
+        metrics.addDependency("remote", true, true, 2048, 100);
+        metrics.addDependency("remote", true, false, 0, 10);
+        metrics.addDependency("remote", false, true, 0, 30);
+        metrics.addArtifactRequest("remote");
+        metrics.addArtifactRequest("remote");
+        metrics.addArtifactRequest("remote");
+        metrics.addArtifactFetch("remote", true, 1024 * 1024);
+        metrics.addArtifactFetch("remote", false, 0);
+        metrics.addArtifactRequest("local");
+
+        assertThat(metrics.getSummary()).containsExactly(
+                "Resolver 'local': 0 dependencies (0 cached, 0 fetched, 0 not found), 1 artifacts (1 cached, 0 fetched, 0 failed), 0 B fetched",
+                "Resolver 'remote': 3 dependencies (1 cached, 1 fetched, 1 not found), 3 artifacts (1 cached, 1 fetched, 1 failed), 1.0 MB fetched, resolve time p50 30 ms, p90 100 ms, p99 100 ms");
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2010 Guy Mahieu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.clarent.ivyidea.resolve.snapshot;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ResolveSnapshotTest {
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final ResolveSnapshot snapshot = new ResolveSnapshot("abc123",
+                Arrays.asList(
+                        new ResolveSnapshot.ArtifactEntry("Classes", "default", "org.example", "lib", "1.0", "lib", "jar", "jar", "/cache/lib-1.0.jar"),
+                        new ResolveSnapshot.ArtifactEntry("Sources", "default", "org.example", "lib", "1.0", "lib", "source", "jar", null)),
+                Collections.singletonList("other-module"),
+                Collections.singletonList(new ResolveSnapshot.ProblemEntry("org.example#missing;2.0", "not found \u00e9")));
+
+        final ResolveSnapshot read = ResolveSnapshot.read(new ByteArrayInputStream(write(snapshot)));
+
+        assertThat(read.getInputFingerprint()).isEqualTo("abc123");
+        assertThat(read.getArtifacts()).hasSize(2);
+        final ResolveSnapshot.ArtifactEntry jar = read.getArtifacts().get(0);
+        assertThat(jar.getCategory()).isEqualTo("Classes");
+        assertThat(jar.getOrganisation()).isEqualTo("org.example");
+        assertThat(jar.getRevision()).isEqualTo("1.0");
+        assertThat(jar.getPath()).isEqualTo("/cache/lib-1.0.jar");
+        assertThat(read.getArtifacts().get(1).getPath()).isNull();
+        assertThat(read.getModuleDependencies()).containsExactly("other-module");
+        assertThat(read.getProblems()).hasSize(1);
+        assertThat(read.getProblems().get(0).getMessage()).isEqualTo("not found \u00e9");
+    }
+
+    @Test
+    public void testOtherVersionIsRejected() throws IOException {
+        final byte[] bytes = write(new ResolveSnapshot(null, Collections.emptyList(), Collections.emptyList(), Collections.emptyList()));
+        bytes[7]++; // the version follows the 4 byte magic number
+
+        assertThatThrownBy(() -> ResolveSnapshot.read(new ByteArrayInputStream(bytes))).isInstanceOf(IOException.class);
+    }
+
+    private static byte[] write(ResolveSnapshot snapshot) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.write(out);
+        return out.toByteArray();
+    }
+}